@@ -0,0 +1,111 @@
+package activity;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares a JMH CSV result file against the committed baseline and exits with status 1 when a
+// benchmark's average time grew by more than the tolerance, or its normalized allocation rate grew
+// by more than the tolerance and by more than ALLOCATION_TOLERANCE_BYTES. JMH reports an
+// allocation-free path as a few millionths of a byte per op rather than 0, so the absolute floor is
+// what makes a zero-allocation baseline comparable: any new object costs at least 16 bytes.
+// Usage: BaselineComparator <baseline.csv> <results.csv> [tolerancePercent, default 10]
+public class BaselineComparator {
+
+    private static final String ALLOCATION_METRIC = ":gc.alloc.rate.norm";
+    static final double ALLOCATION_TOLERANCE_BYTES = 8;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.csv> <results.csv> [tolerancePercent]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Double> baseline = readScores(Path.of(args[0]));
+        Map<String, Double> results = readScores(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : results.entrySet()) {
+            Double expected = baseline.get(entry.getKey());
+            if (expected == null) {
+                System.out.printf("NEW        %s = %.3f%n", entry.getKey(), entry.getValue());
+                continue;
+            }
+            boolean regressed = isRegression(entry.getKey(), expected, entry.getValue(), tolerance);
+            if (regressed) {
+                regressions++;
+            }
+            if (entry.getKey().contains(ALLOCATION_METRIC)) {
+                System.out.printf("%-10s %s: %.3f -> %.3f B/op (%+.3f B/op)%n", regressed ? "REGRESSION" : "OK",
+                        entry.getKey(), expected, entry.getValue(), entry.getValue() - expected);
+            } else {
+                System.out.printf("%-10s %s: %.3f -> %.3f (%+.1f%%)%n", regressed ? "REGRESSION" : "OK",
+                        entry.getKey(), expected, entry.getValue(), (entry.getValue() - expected) / expected * 100.0);
+            }
+        }
+        System.out.printf("%d regression(s) above %.1f%%%n", regressions, tolerance);
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    static boolean isRegression(String key, double expected, double actual, double tolerancePercent) {
+        double allowed = Math.abs(expected) * tolerancePercent / 100.0;
+        if (key.contains(ALLOCATION_METRIC)) {
+            allowed = Math.max(allowed, ALLOCATION_TOLERANCE_BYTES);
+        }
+        return actual - expected > allowed;
+    }
+
+    // Keys are "benchmark[param=value,...]"; only the primary score and normalized allocation are kept
+    static Map<String, Double> readScores(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        Map<String, Double> scores = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return scores;
+        }
+        List<String> header = parseLine(lines.get(0));
+        int benchmarkColumn = header.indexOf("Benchmark");
+        int scoreColumn = header.indexOf("Score");
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = parseLine(line);
+            String benchmark = fields.get(benchmarkColumn);
+            if (benchmark.contains(":") && !benchmark.endsWith(ALLOCATION_METRIC)) {
+                continue;
+            }
+            List<String> params = new ArrayList<>();
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && i < fields.size() && !fields.get(i).isEmpty()) {
+                    params.add(header.get(i).substring("Param: ".length()) + "=" + fields.get(i));
+                }
+            }
+            String key = params.isEmpty() ? benchmark : benchmark + "[" + String.join(",", params) + "]";
+            scores.put(key, Double.parseDouble(fields.get(scoreColumn)));
+        }
+        return scores;
+    }
+
+    private static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
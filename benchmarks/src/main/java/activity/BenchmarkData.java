@@ -0,0 +1,61 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Deterministic input generators shared by the benchmarks, so runs are comparable across machines.
+final class BenchmarkData {
+
+    static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    static final String[] LOCATIONS = {"New York", "Los Angeles", "Chicago", "Houston", "Phoenix", "Fraud Town"};
+
+    private BenchmarkData() {
+    }
+
+    // Chronological history of the given size; the last hour holds a realistic handful of events
+    static List<FraudDetectionSystem.Transaction> transactionHistory(int size, long seed) {
+        Random random = new Random(seed);
+        List<FraudDetectionSystem.Transaction> history = new ArrayList<>(size);
+        LocalDateTime time = START;
+        for (int i = 0; i < size; i++) {
+            time = time.plusSeconds(60 + random.nextInt(1200));
+            history.add(new FraudDetectionSystem.Transaction(random.nextInt(15000), time,
+                    LOCATIONS[random.nextInt(LOCATIONS.length - 1)]));
+        }
+        return history;
+    }
+
+    static List<String> blacklist(int size) {
+        List<String> blacklist = new ArrayList<>(size + 1);
+        for (int i = 0; i < size; i++) {
+            blacklist.add("BLACKLISTED-" + i);
+        }
+        blacklist.add("Fraud Town");
+        return blacklist;
+    }
+
+    static Map<String, Integer> devicePriorities(int count, long seed) {
+        Random random = new Random(seed);
+        Map<String, Integer> priorities = new HashMap<>();
+        priorities.put("Security", 1);
+        priorities.put("Refrigerator", 1);
+        for (int i = priorities.size(); i < count; i++) {
+            priorities.put("Device-" + i, 1 + random.nextInt(3));
+        }
+        return priorities;
+    }
+
+    static List<SmartEnergyManagementSystem.DeviceSchedule> schedules(int count, LocalDateTime around, long seed) {
+        Random random = new Random(seed);
+        List<SmartEnergyManagementSystem.DeviceSchedule> schedules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            schedules.add(new SmartEnergyManagementSystem.DeviceSchedule("Device-" + random.nextInt(Math.max(1, count)),
+                    around.plusMinutes(random.nextInt(1440) - 720)));
+        }
+        return schedules;
+    }
+}
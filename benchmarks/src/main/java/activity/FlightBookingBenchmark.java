@@ -0,0 +1,74 @@
+package activity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlightBookingBenchmark {
+
+    @Param({"confirmed", "lastMinuteGroup", "cancellation"})
+    public String scenario;
+
+    private FlightBookingSystem bookingSystem;
+    private LocalDateTime bookingTime;
+    private LocalDateTime departureTime;
+    private int passengers;
+    private boolean isCancellation;
+    private BulkFlightPricer pricer;
+    private BulkFlightPricer.Batch batch;
+
+    @Setup
+    public void setUp() {
+        bookingSystem = new FlightBookingSystem();
+        bookingTime = BenchmarkData.START;
+        switch (scenario) {
+            case "lastMinuteGroup":
+                departureTime = bookingTime.plusHours(12);
+                passengers = 6;
+                break;
+            case "cancellation":
+                departureTime = bookingTime.plusDays(3);
+                passengers = 2;
+                isCancellation = true;
+                break;
+            default:
+                departureTime = bookingTime.plusDays(7);
+                passengers = 2;
+        }
+
+        pricer = new BulkFlightPricer();
+        batch = new BulkFlightPricer.Batch(10_000);
+        for (int i = 0; i < batch.capacity(); i++) {
+            batch.add(passengers + i % 4, bookingTime, 200, 350.0 + i % 50, 75, isCancellation, departureTime, i % 3 == 0 ? 500 : 0);
+        }
+    }
+
+    @Benchmark
+    public FlightBookingSystem.BookingResult bookFlight() {
+        return bookingSystem.bookFlight(passengers, bookingTime, 200, 350.0, 75, isCancellation, departureTime, 500);
+    }
+
+    // Prices 10,000 rows per invocation
+    @Benchmark
+    public BulkFlightPricer.Batch bulkPrice() {
+        pricer.price(batch);
+        return batch;
+    }
+}
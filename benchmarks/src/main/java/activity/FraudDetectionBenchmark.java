@@ -0,0 +1,80 @@
+package activity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FraudDetectionBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int historySize;
+
+    @Param({"100", "10000"})
+    public int blacklistSize;
+
+    private FraudDetectionSystem fraudSystem;
+    private List<FraudDetectionSystem.Transaction> history;
+    private List<String> blacklist;
+    private BlacklistIndex blacklistIndex;
+    private TransactionColumns columns;
+    private FraudDetectionSystem.Transaction current;
+    private long currentMillis;
+    private int currentLocationId;
+    private FraudDetectionSystem.FraudCheckResult holder;
+
+    @Setup
+    public void setUp() {
+        fraudSystem = new FraudDetectionSystem();
+        history = BenchmarkData.transactionHistory(historySize + 1, 42);
+        current = history.remove(history.size() - 1);
+        blacklist = BenchmarkData.blacklist(blacklistSize);
+        blacklistIndex = BlacklistIndex.withBloomFilter(blacklist);
+        columns = TransactionColumns.of(history, new LocationDictionary());
+        currentMillis = TransactionColumns.toEpochMillis(current.timestamp);
+        currentLocationId = columns.locations().idOf(current.location);
+        holder = new FraudDetectionSystem.FraudCheckResult();
+    }
+
+    @Benchmark
+    public FraudDetectionSystem.FraudCheckResult checkForFraud() {
+        return fraudSystem.checkForFraud(current, history, blacklist);
+    }
+
+    @Benchmark
+    public FraudDetectionSystem.FraudCheckResult checkForFraudIndexed() {
+        return fraudSystem.checkForFraud(current, history, blacklistIndex);
+    }
+
+    @Benchmark
+    public FraudDetectionSystem.FraudCheckResult checkForFraudColumnar() {
+        return fraudSystem.checkForFraud(current.amount, currentMillis, currentLocationId, columns, blacklistIndex);
+    }
+
+    // The holder-reusing paths are expected to stay allocation-free; gc.alloc.rate.norm in the baseline enforces it
+    @Benchmark
+    public FraudDetectionSystem.FraudCheckResult checkForFraudIndexedIntoHolder() {
+        return fraudSystem.checkForFraud(current, history, blacklistIndex, holder);
+    }
+
+    @Benchmark
+    public FraudDetectionSystem.FraudCheckResult checkForFraudColumnarIntoHolder() {
+        return fraudSystem.checkForFraud(current.amount, currentMillis, currentLocationId, columns, blacklistIndex, holder);
+    }
+}
@@ -0,0 +1,56 @@
+package activity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmartEnergyBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int deviceCount;
+
+    // "shedding" puts usage 10 units over the limit so the load-shedding loop runs
+    @Param({"normal", "shedding"})
+    public String scenario;
+
+    private SmartEnergyManagementSystem energySystem;
+    private Map<String, Integer> devicePriorities;
+    private List<SmartEnergyManagementSystem.DeviceSchedule> schedules;
+    private LocalDateTime currentTime;
+    private double totalEnergyUsedToday;
+    private final double[] desiredTemperatureRange = {20.0, 24.0};
+
+    @Setup
+    public void setUp() {
+        energySystem = new SmartEnergyManagementSystem();
+        devicePriorities = BenchmarkData.devicePriorities(deviceCount, 7);
+        currentTime = BenchmarkData.START.plusHours(14);
+        schedules = BenchmarkData.schedules(deviceCount / 10, currentTime, 11);
+        totalEnergyUsedToday = "shedding".equals(scenario) ? 110.0 : 50.0;
+    }
+
+    @Benchmark
+    public SmartEnergyManagementSystem.EnergyManagementResult manageEnergy() {
+        return energySystem.manageEnergy(0.25, 0.20, devicePriorities, currentTime, 22.0,
+                desiredTemperatureRange, 100.0, totalEnergyUsedToday, schedules);
+    }
+}
@@ -0,0 +1,154 @@
+package activity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Concurrent per-account transaction windows for checkForFraud. Each account holds an immutable,
+// copy-on-write window, so scorers read it without locking; updates of one account are serialized
+// by a lock stripe chosen from the account hash. Windows keep only what the standard rules can
+// still see: transactions within the last hour of the newest one, capped at one more than the
+// velocity threshold. Trimming assumes each account's events arrive in time order.
+// Memory is bounded by evicting accounts idle for longer than the TTL and, when the account limit
+// is reached, the least recently active accounts.
+public class AccountStateStore {
+
+    static final int DEFAULT_WINDOW_MINUTES = 60;
+    static final int DEFAULT_WINDOW_CAPACITY = 11;
+
+    private final FraudDetectionSystem fraudSystem;
+    private final int windowMinutes;
+    private final int windowCapacity;
+    private final long ttlMillis;
+    private final int maxAccounts;
+    private final LongSupplier clockMillis;
+
+    private final ConcurrentHashMap<String, AccountState> accounts = new ConcurrentHashMap<>();
+    private final Object[] stripes;
+    private final LongAdder evictions = new LongAdder();
+
+    public AccountStateStore(long ttlMillis, int maxAccounts) {
+        this(new FraudDetectionSystem(), DEFAULT_WINDOW_MINUTES, DEFAULT_WINDOW_CAPACITY, ttlMillis, maxAccounts, 64,
+                System::currentTimeMillis);
+    }
+
+    public AccountStateStore(FraudDetectionSystem fraudSystem, int windowMinutes, int windowCapacity, long ttlMillis,
+                             int maxAccounts, int stripeCount, LongSupplier clockMillis) {
+        this.fraudSystem = fraudSystem;
+        this.windowMinutes = windowMinutes;
+        this.windowCapacity = windowCapacity;
+        this.ttlMillis = ttlMillis;
+        this.maxAccounts = maxAccounts;
+        this.clockMillis = clockMillis;
+        this.stripes = new Object[Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    static class AccountState {
+        final List<FraudDetectionSystem.Transaction> transactions;
+        final long lastActiveMillis;
+
+        AccountState(List<FraudDetectionSystem.Transaction> transactions, long lastActiveMillis) {
+            this.transactions = transactions;
+            this.lastActiveMillis = lastActiveMillis;
+        }
+    }
+
+    // Scores the transaction against the account's window and then adds it, atomically per account
+    public FraudDetectionSystem.FraudCheckResult checkAndRecord(String accountId, FraudDetectionSystem.Transaction transaction,
+                                                               BlacklistIndex blacklist) {
+        synchronized (stripeFor(accountId)) {
+            FraudDetectionSystem.FraudCheckResult result = fraudSystem.checkForFraud(transaction, window(accountId), blacklist);
+            append(accountId, transaction);
+            return result;
+        }
+    }
+
+    public void record(String accountId, FraudDetectionSystem.Transaction transaction) {
+        synchronized (stripeFor(accountId)) {
+            append(accountId, transaction);
+        }
+    }
+
+    // Lock-free snapshot of the account's current window, oldest first
+    public List<FraudDetectionSystem.Transaction> window(String accountId) {
+        AccountState state = accounts.get(accountId);
+        return state == null ? Collections.emptyList() : state.transactions;
+    }
+
+    public int size() {
+        return accounts.size();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    // Drops every account without activity within the TTL; meant to be called periodically
+    public int evictIdle() {
+        long cutoff = clockMillis.getAsLong() - ttlMillis;
+        int evicted = 0;
+        for (Map.Entry<String, AccountState> entry : accounts.entrySet()) {
+            AccountState state = entry.getValue();
+            // Conditional remove: an account updated in the meantime stays
+            if (state.lastActiveMillis < cutoff && accounts.remove(entry.getKey(), state)) {
+                evicted++;
+            }
+        }
+        evictions.add(evicted);
+        return evicted;
+    }
+
+    private void append(String accountId, FraudDetectionSystem.Transaction transaction) {
+        AccountState previous = accounts.get(accountId);
+        List<FraudDetectionSystem.Transaction> transactions = previous == null ? Collections.emptyList() : previous.transactions;
+
+        int start = Math.max(0, transactions.size() + 1 - windowCapacity);
+        while (start < transactions.size()
+                && Duration.between(transactions.get(start).timestamp, transaction.timestamp).toMinutes() > windowMinutes) {
+            start++;
+        }
+        FraudDetectionSystem.Transaction[] window = new FraudDetectionSystem.Transaction[transactions.size() - start + 1];
+        for (int i = start; i < transactions.size(); i++) {
+            window[i - start] = transactions.get(i);
+        }
+        window[window.length - 1] = transaction;
+
+        accounts.put(accountId, new AccountState(Collections.unmodifiableList(Arrays.asList(window)), clockMillis.getAsLong()));
+        if (previous == null && accounts.size() > maxAccounts) {
+            makeRoom(accountId);
+        }
+    }
+
+    // Evicts idle accounts and, if that is not enough, the least recently active eighth of the
+    // accounts, so that a full store pays for sorting only once per many new accounts
+    private void makeRoom(String addedAccountId) {
+        if (evictIdle() > 0 && accounts.size() <= maxAccounts) {
+            return;
+        }
+        List<Map.Entry<String, AccountState>> entries = new ArrayList<>(accounts.entrySet());
+        entries.sort((a, b) -> Long.compare(a.getValue().lastActiveMillis, b.getValue().lastActiveMillis));
+        int target = accounts.size() - maxAccounts + maxAccounts / 8;
+        int evicted = 0;
+        for (int i = 0; i < entries.size() && evicted < target; i++) {
+            Map.Entry<String, AccountState> entry = entries.get(i);
+            if (!entry.getKey().equals(addedAccountId) && accounts.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        evictions.add(evicted);
+    }
+
+    private Object stripeFor(String accountId) {
+        int hash = accountId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,120 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Books and cancels a large batch of requests against a shared SeatInventory. Requests are grouped
+// by flight, flights are processed in parallel on a ForkJoinPool and results come back in input
+// order. Within a flight the seat outcome of every request is planned in request order and the net
+// seat change is committed in one atomic step, then the whole flight is priced with BulkFlightPricer.
+// Every result equals what bookFlight(SeatInventory, ...) returns when the flight's requests are
+// made one at a time in order.
+public class BatchBookingPipeline {
+
+    private final BulkFlightPricer pricer;
+    private final ForkJoinPool pool;
+
+    public BatchBookingPipeline() {
+        this(new BulkFlightPricer(), ForkJoinPool.commonPool());
+    }
+
+    public BatchBookingPipeline(BulkFlightPricer pricer, ForkJoinPool pool) {
+        this.pricer = pricer;
+        this.pool = pool;
+    }
+
+    public static class BookingRequest {
+        String flightId;
+        int passengers;
+        LocalDateTime bookingTime;
+        double currentPrice;
+        int previousSales;
+        boolean isCancellation;
+        LocalDateTime departureTime;
+        int rewardPointsAvailable;
+
+        public BookingRequest(String flightId, int passengers, LocalDateTime bookingTime, double currentPrice, int previousSales,
+                              boolean isCancellation, LocalDateTime departureTime, int rewardPointsAvailable) {
+            this.flightId = flightId;
+            this.passengers = passengers;
+            this.bookingTime = bookingTime;
+            this.currentPrice = currentPrice;
+            this.previousSales = previousSales;
+            this.isCancellation = isCancellation;
+            this.departureTime = departureTime;
+            this.rewardPointsAvailable = rewardPointsAvailable;
+        }
+    }
+
+    // Invalid requests (unknown flights, non-positive passenger counts) are rejected before any
+    // flight is committed, so a failed batch never leaves seats taken that it does not report
+    public List<FlightBookingSystem.BookingResult> bookAll(SeatInventory inventory, List<BookingRequest> requests) {
+        Map<String, List<Integer>> flights = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            SeatInventory.requirePositive(request.passengers);
+            flights.computeIfAbsent(request.flightId, id -> new ArrayList<>()).add(i);
+        }
+        for (String flightId : flights.keySet()) {
+            inventory.flight(flightId);
+        }
+
+        FlightBookingSystem.BookingResult[] results = new FlightBookingSystem.BookingResult[requests.size()];
+        List<RecursiveAction> tasks = new ArrayList<>(flights.size());
+        for (Map.Entry<String, List<Integer>> flight : flights.entrySet()) {
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    bookFlight(inventory, flight.getKey(), requests, flight.getValue(), results);
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        return List.of(results);
+    }
+
+    private void bookFlight(SeatInventory inventory, String flightId, List<BookingRequest> requests, List<Integer> rows,
+                            FlightBookingSystem.BookingResult[] results) {
+        int capacity = inventory.capacity(flightId);
+        BulkFlightPricer.Batch batch = new BulkFlightPricer.Batch(rows.size());
+        for (int index : rows) {
+            BookingRequest request = requests.get(index);
+            batch.add(request.passengers, request.bookingTime, 0, request.currentPrice, request.previousSales,
+                    request.isCancellation, request.departureTime, request.rewardPointsAvailable);
+        }
+
+        // Plan the seats each row sees, as if the requests were made one at a time
+        inventory.commit(flightId, available -> {
+            for (int row = 0; row < batch.size; row++) {
+                int passengers = batch.passengers[row];
+                if (batch.cancellation[row]) {
+                    batch.availableSeats[row] = capacity;
+                    if (passengers <= capacity) {
+                        available = Math.min(capacity, available + passengers);
+                    }
+                } else {
+                    batch.availableSeats[row] = available;
+                    if (passengers <= available) {
+                        available -= passengers;
+                    }
+                }
+            }
+            return available;
+        });
+
+        pricer.price(batch);
+        for (int row = 0; row < batch.size; row++) {
+            results[rows.get(row)] = batch.result(row);
+        }
+    }
+}
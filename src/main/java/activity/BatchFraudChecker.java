@@ -0,0 +1,97 @@
+package activity;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Scores a batch of transactions spanning many accounts. Transactions are partitioned by account,
+// partitions are scored in parallel on a ForkJoinPool and results come back in input order.
+// Within an account every transaction sees the account's earlier transactions of the batch as its
+// history, exactly as if checkForFraud had been called one event at a time.
+public class BatchFraudChecker {
+
+    private final FraudDetectionSystem fraudSystem;
+    private final ForkJoinPool pool;
+
+    public BatchFraudChecker() {
+        this(new FraudDetectionSystem(), ForkJoinPool.commonPool());
+    }
+
+    public BatchFraudChecker(FraudDetectionSystem fraudSystem, ForkJoinPool pool) {
+        this.fraudSystem = fraudSystem;
+        this.pool = pool;
+    }
+
+    public static class AccountTransaction {
+        String accountId;
+        FraudDetectionSystem.Transaction transaction;
+
+        public AccountTransaction(String accountId, FraudDetectionSystem.Transaction transaction) {
+            this.accountId = accountId;
+            this.transaction = transaction;
+        }
+    }
+
+    public List<FraudDetectionSystem.FraudCheckResult> checkAll(List<AccountTransaction> transactions, List<String> blacklistedLocations) {
+        return checkAll(transactions, BlacklistIndex.of(blacklistedLocations));
+    }
+
+    public List<FraudDetectionSystem.FraudCheckResult> checkAll(List<AccountTransaction> transactions, BlacklistIndex blacklist) {
+        Map<String, List<Integer>> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            partitions.computeIfAbsent(transactions.get(i).accountId, id -> new ArrayList<>()).add(i);
+        }
+
+        FraudDetectionSystem.FraudCheckResult[] results = new FraudDetectionSystem.FraudCheckResult[transactions.size()];
+        List<RecursiveAction> tasks = new ArrayList<>(partitions.size());
+        for (List<Integer> partition : partitions.values()) {
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    scorePartition(transactions, partition, blacklist, results);
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        return List.of(results);
+    }
+
+    private void scorePartition(List<AccountTransaction> transactions, List<Integer> partition, BlacklistIndex blacklist,
+                                FraudDetectionSystem.FraudCheckResult[] results) {
+        // The streaming scorer hard-codes the standard rules; custom pipelines rescan the history
+        if (fraudSystem.usesStandardRules() && isChronological(transactions, partition)) {
+            StreamingFraudScorer scorer = new StreamingFraudScorer(fraudSystem);
+            for (int index : partition) {
+                AccountTransaction entry = transactions.get(index);
+                results[index] = scorer.score(entry.accountId, entry.transaction, blacklist);
+            }
+            return;
+        }
+
+        // Other partitions fall back to rescanning the growing history
+        List<FraudDetectionSystem.Transaction> history = new ArrayList<>(partition.size());
+        for (int index : partition) {
+            FraudDetectionSystem.Transaction transaction = transactions.get(index).transaction;
+            results[index] = fraudSystem.checkForFraud(transaction, history, blacklist);
+            history.add(transaction);
+        }
+    }
+
+    private static boolean isChronological(List<AccountTransaction> transactions, List<Integer> partition) {
+        for (int i = 1; i < partition.size(); i++) {
+            if (transactions.get(partition.get(i)).transaction.timestamp
+                    .isBefore(transactions.get(partition.get(i - 1)).transaction.timestamp)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
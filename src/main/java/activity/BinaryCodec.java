@@ -0,0 +1,286 @@
+package activity;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Compact binary wire format for transactions and engine results, written straight into ByteBuffers.
+// Encoder and Decoder are stateful per stream: timestamps are zigzag varint deltas from the previous
+// timestamp (millisecond precision), and location and device names are dictionary coded, so a name
+// is sent in full only the first time it appears on the stream; a name reference also carries one
+// payload bit, which holds the device status in energy results. Doubles are sent as raw IEEE-754.
+// Records can be grouped into frames: kind (1 byte), payload length (int), record count (int).
+// A write that overflows the buffer throws BufferOverflowException and leaves the buffer position and
+// the stream state as they were, so the caller can flush the buffer and write the record again.
+public final class BinaryCodec {
+
+    public static final byte TRANSACTION = 1;
+    public static final byte FRAUD_CHECK_RESULT = 2;
+    public static final byte BOOKING_RESULT = 3;
+    public static final byte ENERGY_MANAGEMENT_RESULT = 4;
+
+    static final int FRAME_HEADER_SIZE = 9;
+
+    private BinaryCodec() {
+    }
+
+    public static class Encoder {
+        private final LocationDictionary names = new LocationDictionary();
+        private long lastEpochMillis;
+
+        public void writeTransaction(ByteBuffer out, FraudDetectionSystem.Transaction transaction) {
+            int position = out.position();
+            int knownNames = names.size();
+            long epochMillis = lastEpochMillis;
+            try {
+                putTransaction(out, transaction);
+            } catch (BufferOverflowException e) {
+                rollback(out, position, knownNames, epochMillis);
+                throw e;
+            }
+        }
+
+        public void writeFraudCheckResult(ByteBuffer out, FraudDetectionSystem.FraudCheckResult result) {
+            int position = out.position();
+            try {
+                out.put(flags(result.isFraudulent, result.isBlocked, result.verificationRequired));
+                writeVarLong(out, result.riskScore);
+            } catch (BufferOverflowException e) {
+                out.position(position);
+                throw e;
+            }
+        }
+
+        public void writeBookingResult(ByteBuffer out, FlightBookingSystem.BookingResult result) {
+            int position = out.position();
+            try {
+                out.put(flags(result.confirmation, result.pointsUsed, false));
+                out.putDouble(result.totalPrice);
+                out.putDouble(result.refundAmount);
+            } catch (BufferOverflowException e) {
+                out.position(position);
+                throw e;
+            }
+        }
+
+        public void writeEnergyManagementResult(ByteBuffer out, SmartEnergyManagementSystem.EnergyManagementResult result) {
+            int position = out.position();
+            int knownNames = names.size();
+            try {
+                out.put(flags(result.energySavingMode, result.temperatureRegulationActive, false));
+                out.putDouble(result.totalEnergyUsed);
+                writeVarLong(out, result.deviceStatus.size());
+                for (Map.Entry<String, Boolean> device : result.deviceStatus.entrySet()) {
+                    writeName(out, device.getKey(), device.getValue());
+                }
+            } catch (BufferOverflowException e) {
+                rollback(out, position, knownNames, lastEpochMillis);
+                throw e;
+            }
+        }
+
+        // Reserves a frame header and returns its position for endFrame
+        public int beginFrame(ByteBuffer out, byte kind) {
+            int start = out.position();
+            if (out.remaining() < FRAME_HEADER_SIZE) {
+                throw new BufferOverflowException();
+            }
+            out.put(kind);
+            out.putInt(0);
+            out.putInt(0);
+            return start;
+        }
+
+        public void endFrame(ByteBuffer out, int frameStart, int count) {
+            out.putInt(frameStart + 1, out.position() - frameStart - FRAME_HEADER_SIZE);
+            out.putInt(frameStart + 5, count);
+        }
+
+        // Writes the whole frame or, on overflow, nothing
+        public void writeTransactions(ByteBuffer out, List<FraudDetectionSystem.Transaction> transactions) {
+            int knownNames = names.size();
+            long epochMillis = lastEpochMillis;
+            int frame = beginFrame(out, TRANSACTION);
+            try {
+                for (FraudDetectionSystem.Transaction transaction : transactions) {
+                    putTransaction(out, transaction);
+                }
+            } catch (BufferOverflowException e) {
+                rollback(out, frame, knownNames, epochMillis);
+                throw e;
+            }
+            endFrame(out, frame, transactions.size());
+        }
+
+        private void putTransaction(ByteBuffer out, FraudDetectionSystem.Transaction transaction) {
+            long epochMillis = TransactionColumns.toEpochMillis(transaction.timestamp);
+            writeVarLong(out, zigzag(epochMillis - lastEpochMillis));
+            lastEpochMillis = epochMillis;
+            out.putDouble(transaction.amount);
+            writeName(out, transaction.location, false);
+        }
+
+        // Undoes a write that overflowed: the decoder never sees its bytes, so its names and
+        // timestamp must not count either
+        private void rollback(ByteBuffer out, int position, int knownNames, long epochMillis) {
+            out.position(position);
+            names.truncate(knownNames);
+            lastEpochMillis = epochMillis;
+        }
+
+        // Known names cost one varint: ID, "new name" bit, payload bit. New names are defined inline
+        // and get the next ID on both sides.
+        private void writeName(ByteBuffer out, String name, boolean payload) {
+            int id = names.find(name);
+            if (id >= 0) {
+                writeVarLong(out, (long) id << 2 | (payload ? 1 : 0));
+                return;
+            }
+            names.idOf(name);
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, 2 | (payload ? 1 : 0));
+            writeVarLong(out, bytes.length);
+            out.put(bytes);
+        }
+    }
+
+    public static class Decoder {
+        private final LocationDictionary names = new LocationDictionary();
+        private long lastEpochMillis;
+
+        public FraudDetectionSystem.Transaction readTransaction(ByteBuffer in) {
+            lastEpochMillis += unzigzag(readVarLong(in));
+            double amount = in.getDouble();
+            return new FraudDetectionSystem.Transaction(amount, toLocalDateTime(lastEpochMillis), readName(in, readVarLong(in)));
+        }
+
+        public FraudDetectionSystem.FraudCheckResult readFraudCheckResult(ByteBuffer in) {
+            return readFraudCheckResult(in, new FraudDetectionSystem.FraudCheckResult());
+        }
+
+        public FraudDetectionSystem.FraudCheckResult readFraudCheckResult(ByteBuffer in, FraudDetectionSystem.FraudCheckResult result) {
+            byte flags = in.get();
+            return result.set(flag(flags, 0), flag(flags, 1), flag(flags, 2), (int) readVarLong(in));
+        }
+
+        public FlightBookingSystem.BookingResult readBookingResult(ByteBuffer in) {
+            return readBookingResult(in, new FlightBookingSystem.BookingResult());
+        }
+
+        public FlightBookingSystem.BookingResult readBookingResult(ByteBuffer in, FlightBookingSystem.BookingResult result) {
+            byte flags = in.get();
+            double totalPrice = in.getDouble();
+            double refundAmount = in.getDouble();
+            return result.set(flag(flags, 0), totalPrice, refundAmount, flag(flags, 1));
+        }
+
+        public SmartEnergyManagementSystem.EnergyManagementResult readEnergyManagementResult(ByteBuffer in) {
+            return readEnergyManagementResult(in, new SmartEnergyManagementSystem.EnergyManagementResult());
+        }
+
+        // Replaces the holder's device statuses; its map is reused
+        public SmartEnergyManagementSystem.EnergyManagementResult readEnergyManagementResult(
+                ByteBuffer in, SmartEnergyManagementSystem.EnergyManagementResult result) {
+            byte flags = in.get();
+            result.energySavingMode = flag(flags, 0);
+            result.temperatureRegulationActive = flag(flags, 1);
+            result.totalEnergyUsed = in.getDouble();
+            int count = (int) readVarLong(in);
+            Map<String, Boolean> deviceStatus = result.deviceStatus;
+            deviceStatus.clear();
+            for (int i = 0; i < count; i++) {
+                long reference = readVarLong(in);
+                deviceStatus.put(readName(in, reference), (reference & 1) != 0);
+            }
+            return result;
+        }
+
+        // Record count of the frame at the buffer position, or -1 if the frame has not fully arrived;
+        // the position only advances past the header of a complete frame
+        public int readFrameHeader(ByteBuffer in, byte kind) {
+            if (in.remaining() < FRAME_HEADER_SIZE) {
+                return -1;
+            }
+            int start = in.position();
+            if (in.get(start) != kind) {
+                throw new IllegalArgumentException("Expected frame kind " + kind + " but found " + in.get(start));
+            }
+            int length = in.getInt(start + 1);
+            if (in.remaining() < FRAME_HEADER_SIZE + length) {
+                return -1;
+            }
+            in.position(start + FRAME_HEADER_SIZE);
+            return in.getInt(start + 5);
+        }
+
+        public List<FraudDetectionSystem.Transaction> readTransactions(ByteBuffer in) {
+            int count = readFrameHeader(in, TRANSACTION);
+            if (count < 0) {
+                throw new BufferUnderflowException();
+            }
+            List<FraudDetectionSystem.Transaction> transactions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                transactions.add(readTransaction(in));
+            }
+            return transactions;
+        }
+
+        private String readName(ByteBuffer in, long reference) {
+            if ((reference & 2) == 0) {
+                return names.name((int) (reference >>> 2));
+            }
+            byte[] bytes = new byte[(int) readVarLong(in)];
+            in.get(bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            names.idOf(name);
+            return name;
+        }
+    }
+
+    static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static byte flags(boolean first, boolean second, boolean third) {
+        return (byte) ((first ? 1 : 0) | (second ? 2 : 0) | (third ? 4 : 0));
+    }
+
+    private static boolean flag(byte flags, int bit) {
+        return (flags & (1 << bit)) != 0;
+    }
+
+    static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000), Math.floorMod(epochMillis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,119 @@
+package activity;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+// Immutable, hashed replacement for the List<String> blacklist passed to checkForFraud.
+// Lookups are O(1); an optional Bloom filter answers most misses without touching the hash set.
+public final class BlacklistIndex implements Predicate<String> {
+
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASH_FUNCTIONS = 7;
+
+    private static final BlacklistIndex EMPTY = new BlacklistIndex(Collections.emptySet(), null);
+
+    private final Set<String> locations;
+    private final long[] bloomBits;
+
+    private BlacklistIndex(Set<String> locations, long[] bloomBits) {
+        this.locations = locations;
+        this.bloomBits = bloomBits;
+    }
+
+    public static BlacklistIndex empty() {
+        return EMPTY;
+    }
+
+    public static BlacklistIndex of(Collection<String> blacklistedLocations) {
+        return new BlacklistIndex(Collections.unmodifiableSet(new HashSet<>(blacklistedLocations)), null);
+    }
+
+    public static BlacklistIndex withBloomFilter(Collection<String> blacklistedLocations) {
+        Set<String> locations = new HashSet<>(blacklistedLocations);
+        long[] bits = new long[Math.max(1, (locations.size() * BITS_PER_ENTRY + 63) / 64)];
+        for (String location : locations) {
+            if (location != null) {
+                int hash1 = location.hashCode();
+                int hash2 = secondaryHash(hash1);
+                for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                    int bit = bitIndex(hash1 + i * hash2, bits.length);
+                    bits[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+        return new BlacklistIndex(Collections.unmodifiableSet(locations), bits);
+    }
+
+    // Lets the index be handed to rule pipelines without allocating a method reference per check
+    @Override
+    public boolean test(String location) {
+        return contains(location);
+    }
+
+    public boolean contains(String location) {
+        if (bloomBits != null && location != null && !mightContain(location)) {
+            return false;
+        }
+        return locations.contains(location);
+    }
+
+    public int size() {
+        return locations.size();
+    }
+
+    boolean hasBloomFilter() {
+        return bloomBits != null;
+    }
+
+    private boolean mightContain(String location) {
+        int hash1 = location.hashCode();
+        int hash2 = secondaryHash(hash1);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = bitIndex(hash1 + i * hash2, bloomBits.length);
+            if ((bloomBits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int secondaryHash(int hash) {
+        // murmur3 finalizer, forced odd so that every probe sequence visits distinct bits
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash | 1;
+    }
+
+    private static int bitIndex(int hash, int words) {
+        return (int) ((hash & 0xffffffffL) % (words * 64L));
+    }
+
+    // Shared, atomically swappable reference so a new blacklist can be published while
+    // scoring threads keep reading the previous one without locking.
+    public static class Holder {
+        private final AtomicReference<BlacklistIndex> current;
+
+        public Holder() {
+            this(EMPTY);
+        }
+
+        public Holder(BlacklistIndex initial) {
+            this.current = new AtomicReference<>(initial);
+        }
+
+        public BlacklistIndex get() {
+            return current.get();
+        }
+
+        public BlacklistIndex swap(BlacklistIndex replacement) {
+            return current.getAndSet(replacement);
+        }
+    }
+}
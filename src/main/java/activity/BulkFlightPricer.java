@@ -0,0 +1,132 @@
+package activity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Prices many booking requests at once. Inputs and outputs are struct-of-arrays columns of a reusable
+// Batch, so re-pricing a search result allocates nothing per row. The fare pass is a straight-line
+// loop over primitive arrays with select-style conditionals, which C2 can auto-vectorize. Every row
+// produces exactly the values FlightBookingSystem.bookFlight would return for it.
+public class BulkFlightPricer {
+
+    public static class Batch {
+        int size;
+
+        // Inputs
+        final int[] passengers;
+        final int[] availableSeats;
+        final double[] currentPrice;
+        final int[] previousSales;
+        final long[] hoursToDeparture;
+        final int[] rewardPoints;
+        final boolean[] cancellation;
+
+        // Outputs
+        final boolean[] confirmation;
+        final double[] totalPrice;
+        final double[] refundAmount;
+        final boolean[] pointsUsed;
+
+        public Batch(int capacity) {
+            passengers = new int[capacity];
+            availableSeats = new int[capacity];
+            currentPrice = new double[capacity];
+            previousSales = new int[capacity];
+            hoursToDeparture = new long[capacity];
+            rewardPoints = new int[capacity];
+            cancellation = new boolean[capacity];
+            confirmation = new boolean[capacity];
+            totalPrice = new double[capacity];
+            refundAmount = new double[capacity];
+            pointsUsed = new boolean[capacity];
+        }
+
+        public int add(int passengers, LocalDateTime bookingTime, int availableSeats, double currentPrice, int previousSales,
+                       boolean isCancellation, LocalDateTime departureTime, int rewardPointsAvailable) {
+            return add(passengers, availableSeats, currentPrice, previousSales, isCancellation,
+                    Duration.between(bookingTime, departureTime).toHours(), rewardPointsAvailable);
+        }
+
+        public int add(int passengers, int availableSeats, double currentPrice, int previousSales, boolean isCancellation,
+                       long hoursToDeparture, int rewardPointsAvailable) {
+            if (size == this.passengers.length) {
+                throw new IllegalStateException("Batch is full at " + size + " rows");
+            }
+            int row = size++;
+            this.passengers[row] = passengers;
+            this.availableSeats[row] = availableSeats;
+            this.currentPrice[row] = currentPrice;
+            this.previousSales[row] = previousSales;
+            this.cancellation[row] = isCancellation;
+            this.hoursToDeparture[row] = hoursToDeparture;
+            this.rewardPoints[row] = rewardPointsAvailable;
+            return row;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int capacity() {
+            return passengers.length;
+        }
+
+        public boolean confirmation(int row) {
+            return confirmation[row];
+        }
+
+        public double totalPrice(int row) {
+            return totalPrice[row];
+        }
+
+        public double refundAmount(int row) {
+            return refundAmount[row];
+        }
+
+        public boolean pointsUsed(int row) {
+            return pointsUsed[row];
+        }
+
+        public FlightBookingSystem.BookingResult result(int row) {
+            return new FlightBookingSystem.BookingResult(confirmation[row], totalPrice[row], refundAmount[row], pointsUsed[row]);
+        }
+    }
+
+    public void price(Batch batch) {
+        int size = batch.size;
+        int[] passengers = batch.passengers;
+        int[] availableSeats = batch.availableSeats;
+        double[] currentPrice = batch.currentPrice;
+        int[] previousSales = batch.previousSales;
+        long[] hoursToDeparture = batch.hoursToDeparture;
+        int[] rewardPoints = batch.rewardPoints;
+        boolean[] cancellation = batch.cancellation;
+        double[] totalPrice = batch.totalPrice;
+
+        // Fare pass: the same arithmetic, in the same order, as bookFlight
+        for (int i = 0; i < size; i++) {
+            double priceFactor = (previousSales[i] / 100.0) * 0.8;
+            double finalPrice = currentPrice[i] * priceFactor * passengers[i];
+            finalPrice = hoursToDeparture[i] < 24 ? finalPrice + 100 : finalPrice;
+            finalPrice = passengers[i] > 4 ? finalPrice * 0.95 : finalPrice;
+            finalPrice = rewardPoints[i] > 0 ? finalPrice - rewardPoints[i] * 0.01 : finalPrice;
+            totalPrice[i] = finalPrice;
+        }
+
+        // Outcome pass: seat check, cancellations and refunds
+        for (int i = 0; i < size; i++) {
+            boolean seated = passengers[i] <= availableSeats[i];
+            boolean cancelled = seated && cancellation[i];
+            boolean confirmed = seated && !cancellation[i];
+            double finalPrice = totalPrice[i];
+            batch.refundAmount[i] = cancelled ? (hoursToDeparture[i] >= 48 ? finalPrice : finalPrice * 0.5) : 0;
+            batch.pointsUsed[i] = confirmed && rewardPoints[i] > 0;
+            batch.confirmation[i] = confirmed;
+            totalPrice[i] = confirmed ? finalPrice : 0;
+        }
+    }
+}
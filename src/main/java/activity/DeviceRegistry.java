@@ -0,0 +1,157 @@
+package activity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Interns device names into dense int IDs and keeps everything manageEnergy needs per device in
+// primitive form: priorities in an int[], and the prioritized, low-priority (priority > 1) and
+// night-exempt (Security, Refrigerator) sets as long[] bitsets. Heating and Cooling always hold IDs 0
+// and 1. The low-priority devices are pre-sorted in shedding order, so a tick over a registry does
+// integer work only. Not thread-safe.
+public class DeviceRegistry {
+
+    static final int HEATING = 0;
+    static final int COOLING = 1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] names = new String[16];
+    private int[] priorities = new int[16];
+    private int size;
+
+    private long[] prioritized = new long[1];
+    private long[] lowPriority = new long[1];
+    private long[] nightExempt = new long[1];
+
+    // Low-priority device IDs in LoadShedder order; rebuilt lazily after priority changes
+    private int[] sheddingOrder;
+
+    public DeviceRegistry() {
+        idOf("Heating");
+        idOf("Cooling");
+    }
+
+    public static DeviceRegistry of(Map<String, Integer> devicePriorities) {
+        DeviceRegistry registry = new DeviceRegistry();
+        for (Map.Entry<String, Integer> entry : devicePriorities.entrySet()) {
+            registry.setPriority(entry.getKey(), entry.getValue());
+        }
+        return registry;
+    }
+
+    // ID of the device, registering it without a priority if it is new
+    public int idOf(String device) {
+        Integer id = ids.get(device);
+        if (id != null) {
+            return id;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        int newId = size++;
+        names[newId] = device;
+        ids.put(device, newId);
+        int words = words(size);
+        if (words > prioritized.length) {
+            prioritized = Arrays.copyOf(prioritized, words * 2);
+            lowPriority = Arrays.copyOf(lowPriority, words * 2);
+            nightExempt = Arrays.copyOf(nightExempt, words * 2);
+        }
+        if (device.equals("Security") || device.equals("Refrigerator")) {
+            set(nightExempt, newId, true);
+        }
+        return newId;
+    }
+
+    // Returns -1 for unknown devices, without registering them
+    public int find(String device) {
+        Integer id = ids.get(device);
+        return id == null ? -1 : id;
+    }
+
+    public void setPriority(String device, int priority) {
+        int id = idOf(device);
+        priorities[id] = priority;
+        set(prioritized, id, true);
+        set(lowPriority, id, priority > 1);
+        sheddingOrder = null;
+    }
+
+    // The device keeps its ID but is no longer managed or reported
+    public void removePriority(String device) {
+        int id = find(device);
+        if (id >= 0) {
+            set(prioritized, id, false);
+            set(lowPriority, id, false);
+            sheddingOrder = null;
+        }
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int priority(int id) {
+        return priorities[id];
+    }
+
+    public boolean isPrioritized(int id) {
+        return get(prioritized, id);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Number of long words needed for a bitset over the current IDs
+    int words() {
+        return words(size);
+    }
+
+    long[] prioritized() {
+        return prioritized;
+    }
+
+    long[] lowPriority() {
+        return lowPriority;
+    }
+
+    long[] nightExempt() {
+        return nightExempt;
+    }
+
+    int[] sheddingOrder() {
+        if (sheddingOrder == null) {
+            Integer[] order = new Integer[size];
+            int count = 0;
+            for (int id = 0; id < size; id++) {
+                if (get(lowPriority, id)) {
+                    order[count++] = id;
+                }
+            }
+            Arrays.sort(order, 0, count, (a, b) -> LoadShedder.compare(names[a], priorities[a], names[b], priorities[b]));
+            sheddingOrder = new int[count];
+            for (int i = 0; i < count; i++) {
+                sheddingOrder[i] = order[i];
+            }
+        }
+        return sheddingOrder;
+    }
+
+    static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    static void set(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+}
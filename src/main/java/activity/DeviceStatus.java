@@ -0,0 +1,129 @@
+package activity;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Device on/off statuses over the IDs of a DeviceRegistry, as two bitsets: the devices reported in the
+// result and the devices that are on. asMap() is a read-only, live Map<String, Boolean> view in the
+// shape manageEnergy returns, so bitset results can be handed to existing callers without copying.
+public class DeviceStatus {
+
+    private final DeviceRegistry registry;
+    long[] reported;
+    long[] on;
+    private final Map<String, Boolean> view = new MapView();
+
+    public DeviceStatus(DeviceRegistry registry) {
+        this.registry = registry;
+        this.reported = new long[Math.max(1, registry.words())];
+        this.on = new long[reported.length];
+    }
+
+    // Grows the bitsets after devices were registered
+    void ensureCapacity() {
+        int words = registry.words();
+        if (words > reported.length) {
+            reported = Arrays.copyOf(reported, words);
+            on = Arrays.copyOf(on, words);
+        }
+    }
+
+    void set(int id, boolean status) {
+        DeviceRegistry.set(reported, id, true);
+        DeviceRegistry.set(on, id, status);
+    }
+
+    public boolean isReported(int id) {
+        return id < reported.length * 64 && DeviceRegistry.get(reported, id);
+    }
+
+    public boolean isOn(int id) {
+        return id < on.length * 64 && DeviceRegistry.get(on, id);
+    }
+
+    public int reportedCount() {
+        int count = 0;
+        for (long word : reported) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public Map<String, Boolean> asMap() {
+        return view;
+    }
+
+    private class MapView extends AbstractMap<String, Boolean> {
+        private final Set<Map.Entry<String, Boolean>> entries = new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Boolean>> iterator() {
+                return new Iterator<>() {
+                    private int next = nextReported(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Boolean> next() {
+                        if (next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        int id = next;
+                        next = nextReported(id + 1);
+                        return new SimpleImmutableEntry<>(registry.name(id), isOn(id));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return reportedCount();
+            }
+        };
+
+        @Override
+        public Set<Map.Entry<String, Boolean>> entrySet() {
+            return entries;
+        }
+
+        @Override
+        public Boolean get(Object device) {
+            int id = device instanceof String ? registry.find((String) device) : -1;
+            return id >= 0 && isReported(id) ? isOn(id) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object device) {
+            return get(device) != null;
+        }
+
+        @Override
+        public int size() {
+            return reportedCount();
+        }
+    }
+
+    private int nextReported(int from) {
+        int word = from >>> 6;
+        if (word >= reported.length) {
+            return -1;
+        }
+        long bits = reported[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return word * 64 + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == reported.length) {
+                return -1;
+            }
+            bits = reported[word];
+        }
+    }
+}
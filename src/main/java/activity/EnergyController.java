@@ -0,0 +1,202 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Long-lived, event-driven counterpart of SmartEnergyManagementSystem.manageEnergy. Device state is
+// kept between ticks and only the devices affected by a delta (price crossing the threshold,
+// temperature leaving or entering the desired range, night mode starting or ending, load shedding
+// and schedule firings) are re-evaluated. Each tick returns only the statuses that changed; a null
+// value means the device is no longer reported. Schedules fire on the first tick at or after their
+// time, so ticks that land on every scheduled time give exactly the manageEnergy results.
+// Not thread-safe.
+public class EnergyController {
+
+    private static final String HEATING = "Heating";
+    private static final String COOLING = "Cooling";
+
+    private final double priceThreshold;
+    private final Map<String, Integer> devicePriorities;
+    private final double[] desiredTemperatureRange;
+    private final double energyUsageLimit;
+    private final ScheduleQueue scheduleQueue;
+
+    // Devices whose status depends on the price (in shedding order) / on night mode
+    private final List<String> lowPriorityDevices = new ArrayList<>();
+    private final List<String> nightControlledDevices = new ArrayList<>();
+
+    private final Map<String, Boolean> deviceStatus = new HashMap<>();
+    // Devices whose status was overridden by shedding or a schedule and must be restored next tick
+    private final Set<String> overriddenDevices = new LinkedHashSet<>();
+
+    private double currentPrice;
+    private double currentTemperature;
+    private LocalDateTime lastTick;
+    private boolean energySavingMode;
+    private boolean nightMode;
+    private int temperatureBand;
+    private double totalEnergyUsed;
+
+    public EnergyController(double priceThreshold, Map<String, Integer> devicePriorities, double[] desiredTemperatureRange,
+                            double energyUsageLimit, List<SmartEnergyManagementSystem.DeviceSchedule> scheduledDevices,
+                            double currentPrice, double currentTemperature) {
+        this.priceThreshold = priceThreshold;
+        this.devicePriorities = new LinkedHashMap<>(devicePriorities);
+        this.desiredTemperatureRange = desiredTemperatureRange.clone();
+        this.energyUsageLimit = energyUsageLimit;
+        this.scheduleQueue = new ScheduleQueue(scheduledDevices);
+        this.currentPrice = currentPrice;
+        this.currentTemperature = currentTemperature;
+
+        for (Map.Entry<String, Integer> entry : this.devicePriorities.entrySet()) {
+            if (entry.getValue() > 1) {
+                lowPriorityDevices.add(entry.getKey());
+            }
+            if (!entry.getKey().equals("Security") && !entry.getKey().equals("Refrigerator")) {
+                nightControlledDevices.add(entry.getKey());
+            }
+        }
+        lowPriorityDevices.sort((a, b) -> LoadShedder.compare(a, this.devicePriorities.get(a), b, this.devicePriorities.get(b)));
+    }
+
+    public void onPriceChange(double currentPrice) {
+        this.currentPrice = currentPrice;
+    }
+
+    public void onTemperatureChange(double currentTemperature) {
+        this.currentTemperature = currentTemperature;
+    }
+
+    public ScheduleQueue.Entry schedule(SmartEnergyManagementSystem.DeviceSchedule schedule) {
+        return scheduleQueue.add(schedule);
+    }
+
+    public boolean cancelSchedule(ScheduleQueue.Entry entry) {
+        return scheduleQueue.cancel(entry);
+    }
+
+    public Map<String, Boolean> tick(LocalDateTime currentTime, double totalEnergyUsedToday) {
+        boolean newEnergySavingMode = currentPrice > priceThreshold;
+        boolean newNightMode = currentTime.getHour() == 23 || currentTime.getHour() < 6;
+        int newTemperatureBand = currentTemperature < desiredTemperatureRange[0] ? -1
+                : currentTemperature > desiredTemperatureRange[1] ? 1 : 0;
+
+        Set<String> dirty = new LinkedHashSet<>();
+        if (lastTick == null) {
+            dirty.addAll(devicePriorities.keySet());
+            dirty.add(HEATING);
+            dirty.add(COOLING);
+        } else {
+            if (newEnergySavingMode != energySavingMode) {
+                dirty.addAll(lowPriorityDevices);
+            }
+            if (newNightMode != nightMode) {
+                dirty.addAll(nightControlledDevices);
+            }
+            if (newTemperatureBand != temperatureBand) {
+                dirty.add(HEATING);
+                dirty.add(COOLING);
+            }
+        }
+        dirty.addAll(overriddenDevices);
+        overriddenDevices.clear();
+        energySavingMode = newEnergySavingMode;
+        nightMode = newNightMode;
+        temperatureBand = newTemperatureBand;
+
+        Map<String, Boolean> previous = new HashMap<>();
+        for (String device : dirty) {
+            update(device, baseStatus(device), previous);
+        }
+
+        // Shut down devices as energy limit is approached, in the same order as manageEnergy
+        // (lowPriorityDevices is pre-sorted, so this is a single linear pass)
+        for (String device : lowPriorityDevices) {
+            if (totalEnergyUsedToday < energyUsageLimit) {
+                break;
+            }
+            if (deviceStatus.getOrDefault(device, false)) {
+                update(device, false, previous);
+                overriddenDevices.add(device);
+                totalEnergyUsedToday -= 1;
+            }
+        }
+        totalEnergyUsed = totalEnergyUsedToday;
+
+        // Handle scheduled devices that fell due since the previous tick
+        for (SmartEnergyManagementSystem.DeviceSchedule schedule
+                : scheduleQueue.pollDue(lastTick == null ? currentTime : lastTick, currentTime)) {
+            update(schedule.deviceName, true, previous);
+            overriddenDevices.add(schedule.deviceName);
+        }
+        lastTick = currentTime;
+
+        Map<String, Boolean> changes = new LinkedHashMap<>();
+        for (Map.Entry<String, Boolean> entry : previous.entrySet()) {
+            Boolean current = deviceStatus.get(entry.getKey());
+            if (!Objects.equals(entry.getValue(), current)) {
+                changes.put(entry.getKey(), current);
+            }
+        }
+        return changes;
+    }
+
+    // Status a device has before shedding and schedules are applied, or null if it is not reported
+    private Boolean baseStatus(String device) {
+        if (device.equals(HEATING)) {
+            return temperatureBand < 0;
+        }
+        if (device.equals(COOLING)) {
+            return temperatureBand > 0;
+        }
+        Integer priority = devicePriorities.get(device);
+        if (priority == null) {
+            return null;
+        }
+        boolean on = !(energySavingMode && priority > 1);
+        if (nightMode && !device.equals("Security") && !device.equals("Refrigerator")) {
+            on = false;
+        }
+        return on;
+    }
+
+    private void update(String device, Boolean status, Map<String, Boolean> previous) {
+        if (!previous.containsKey(device)) {
+            previous.put(device, deviceStatus.get(device));
+        }
+        if (status == null) {
+            deviceStatus.remove(device);
+        } else {
+            deviceStatus.put(device, status);
+        }
+    }
+
+    public Map<String, Boolean> deviceStatus() {
+        return Collections.unmodifiableMap(deviceStatus);
+    }
+
+    public boolean isEnergySavingMode() {
+        return energySavingMode;
+    }
+
+    public boolean isTemperatureRegulationActive() {
+        return temperatureBand != 0;
+    }
+
+    public double totalEnergyUsed() {
+        return totalEnergyUsed;
+    }
+
+    public SmartEnergyManagementSystem.EnergyManagementResult toResult() {
+        return new SmartEnergyManagementSystem.EnergyManagementResult(new HashMap<>(deviceStatus), energySavingMode,
+                isTemperatureRegulationActive(), totalEnergyUsed);
+    }
+}
@@ -0,0 +1,125 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Runs one manageEnergy evaluation per site for a whole fleet on a work-stealing ForkJoinPool.
+// Price, threshold and clock are shared by every site of a tick; per-site inputs are only read.
+public class EnergyFleetOrchestrator {
+
+    private final SmartEnergyManagementSystem energySystem;
+    private final ForkJoinPool pool;
+
+    public EnergyFleetOrchestrator() {
+        this(new SmartEnergyManagementSystem(), ForkJoinPool.commonPool());
+    }
+
+    public EnergyFleetOrchestrator(SmartEnergyManagementSystem energySystem, ForkJoinPool pool) {
+        this.energySystem = energySystem;
+        this.pool = pool;
+    }
+
+    public static class SiteInput {
+        String siteId;
+        Map<String, Integer> devicePriorities;
+        double currentTemperature;
+        double[] desiredTemperatureRange;
+        double energyUsageLimit;
+        double totalEnergyUsedToday;
+        List<SmartEnergyManagementSystem.DeviceSchedule> scheduledDevices;
+
+        public SiteInput(String siteId, Map<String, Integer> devicePriorities, double currentTemperature, double[] desiredTemperatureRange,
+                         double energyUsageLimit, double totalEnergyUsedToday, List<SmartEnergyManagementSystem.DeviceSchedule> scheduledDevices) {
+            this.siteId = siteId;
+            this.devicePriorities = devicePriorities;
+            this.currentTemperature = currentTemperature;
+            this.desiredTemperatureRange = desiredTemperatureRange;
+            this.energyUsageLimit = energyUsageLimit;
+            this.totalEnergyUsedToday = totalEnergyUsedToday;
+            this.scheduledDevices = scheduledDevices;
+        }
+    }
+
+    public static class FleetTickResult {
+        Map<String, SmartEnergyManagementSystem.EnergyManagementResult> siteResults;
+        long wallTimeNanos;
+        // Per-site evaluation latencies of this tick, sorted ascending
+        long[] siteLatenciesNanos;
+
+        public FleetTickResult(Map<String, SmartEnergyManagementSystem.EnergyManagementResult> siteResults, long wallTimeNanos,
+                               long[] siteLatenciesNanos) {
+            this.siteResults = siteResults;
+            this.wallTimeNanos = wallTimeNanos;
+            this.siteLatenciesNanos = siteLatenciesNanos;
+        }
+
+        // Nearest-rank percentile of the per-site latencies, e.g. percentileNanos(99) for p99
+        public long percentileNanos(double percentile) {
+            if (siteLatenciesNanos.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * siteLatenciesNanos.length);
+            return siteLatenciesNanos[Math.min(siteLatenciesNanos.length, Math.max(1, rank)) - 1];
+        }
+
+        public long maxLatencyNanos() {
+            return siteLatenciesNanos.length == 0 ? 0 : siteLatenciesNanos[siteLatenciesNanos.length - 1];
+        }
+
+        public SmartEnergyManagementSystem.EnergyManagementResult result(String siteId) {
+            return siteResults.get(siteId);
+        }
+    }
+
+    public FleetTickResult tick(double currentPrice, double priceThreshold, LocalDateTime currentTime, List<SiteInput> sites) {
+        // Results are keyed by site, so a repeated siteId would silently lose one of them
+        Set<String> siteIds = new HashSet<>();
+        for (SiteInput site : sites) {
+            if (!siteIds.add(site.siteId)) {
+                throw new IllegalArgumentException("Duplicate site " + site.siteId);
+            }
+        }
+        SmartEnergyManagementSystem.EnergyManagementResult[] results = new SmartEnergyManagementSystem.EnergyManagementResult[sites.size()];
+        long[] latencies = new long[sites.size()];
+        List<RecursiveAction> tasks = new ArrayList<>(sites.size());
+        for (int i = 0; i < sites.size(); i++) {
+            int index = i;
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    SiteInput site = sites.get(index);
+                    long start = System.nanoTime();
+                    results[index] = energySystem.manageEnergy(currentPrice, priceThreshold, site.devicePriorities, currentTime,
+                            site.currentTemperature, site.desiredTemperatureRange, site.energyUsageLimit, site.totalEnergyUsedToday,
+                            site.scheduledDevices);
+                    latencies[index] = System.nanoTime() - start;
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        long wallTime = System.nanoTime() - start;
+
+        Map<String, SmartEnergyManagementSystem.EnergyManagementResult> siteResults = new LinkedHashMap<>();
+        for (int i = 0; i < sites.size(); i++) {
+            siteResults.put(sites.get(i).siteId, results[i]);
+        }
+        Arrays.sort(latencies);
+        return new FleetTickResult(Collections.unmodifiableMap(siteResults), wallTime, latencies);
+    }
+}
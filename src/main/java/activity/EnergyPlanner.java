@@ -0,0 +1,206 @@
+package activity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Day-ahead planner for manageEnergy. Given a price curve of fixed-length intervals, it precomputes a
+// one-byte decision per interval (energy-saving mode, night mode) and, for each of the four possible
+// decisions, the device statuses and the candidates to shed in order. Schedules are bucketed by
+// interval. A tick then copies the statuses of its interval's decision, applies temperature
+// regulation and sheds a prefix of the candidates, giving the same result as manageEnergy with the
+// interval's price. Price and schedule changes only touch the affected interval; priority changes in
+// the registry take effect after refreshDevices(). Not thread-safe.
+public class EnergyPlanner {
+
+    static final byte ENERGY_SAVING = 1;
+    static final byte NIGHT = 2;
+
+    private final DeviceRegistry registry;
+    private final double priceThreshold;
+    private final double[] desiredTemperatureRange;
+    private final double energyUsageLimit;
+    private final LocalDateTime start;
+    private final int intervalMinutes;
+    private final double[] prices;
+
+    private final byte[] decisions;
+    private final List<List<SmartEnergyManagementSystem.DeviceSchedule>> schedules;
+    // Per decision: device statuses before temperature regulation, and shedding candidates in order
+    private final long[][] templates = new long[4][];
+    private final int[][] sheddingCandidates = new int[4][];
+
+    public EnergyPlanner(DeviceRegistry registry, double priceThreshold, double[] desiredTemperatureRange, double energyUsageLimit,
+                         LocalDateTime start, int intervalMinutes, double[] prices,
+                         List<SmartEnergyManagementSystem.DeviceSchedule> scheduledDevices) {
+        if (intervalMinutes <= 0 || 60 % intervalMinutes != 0 || start.getMinute() % intervalMinutes != 0
+                || start.getSecond() != 0 || start.getNano() != 0) {
+            throw new IllegalArgumentException("Intervals must divide an hour and start on an interval boundary");
+        }
+        this.registry = registry;
+        this.priceThreshold = priceThreshold;
+        this.desiredTemperatureRange = desiredTemperatureRange;
+        this.energyUsageLimit = energyUsageLimit;
+        this.start = start;
+        this.intervalMinutes = intervalMinutes;
+        this.prices = prices.clone();
+        this.decisions = new byte[prices.length];
+        this.schedules = new ArrayList<>(prices.length);
+        for (int interval = 0; interval < prices.length; interval++) {
+            schedules.add(null);
+            updateDecision(interval);
+        }
+        for (SmartEnergyManagementSystem.DeviceSchedule schedule : scheduledDevices) {
+            addSchedule(schedule);
+        }
+        refreshDevices();
+    }
+
+    // Rebuilds the status templates and shedding candidates after registry priorities changed
+    public void refreshDevices() {
+        long[] prioritized = registry.prioritized();
+        long[] lowPriority = registry.lowPriority();
+        long[] nightExempt = registry.nightExempt();
+        int words = registry.words();
+        int[] sheddingOrder = registry.sheddingOrder();
+        for (int decision = 0; decision < 4; decision++) {
+            long[] on = new long[words];
+            for (int word = 0; word < words; word++) {
+                long deviceOn = prioritized[word];
+                if ((decision & ENERGY_SAVING) != 0) {
+                    deviceOn &= ~lowPriority[word];
+                }
+                if ((decision & NIGHT) != 0) {
+                    deviceOn &= nightExempt[word];
+                }
+                on[word] = deviceOn;
+            }
+            templates[decision] = on;
+
+            // Heating and Cooling stay candidates: their status is only known at tick time
+            int[] candidates = new int[sheddingOrder.length];
+            int count = 0;
+            for (int device : sheddingOrder) {
+                if (DeviceRegistry.get(on, device) || device == DeviceRegistry.HEATING || device == DeviceRegistry.COOLING) {
+                    candidates[count++] = device;
+                }
+            }
+            sheddingCandidates[decision] = Arrays.copyOf(candidates, count);
+        }
+    }
+
+    public void updatePrice(int interval, double price) {
+        prices[interval] = price;
+        updateDecision(interval);
+    }
+
+    public void addSchedule(SmartEnergyManagementSystem.DeviceSchedule schedule) {
+        int interval = intervalOf(schedule.scheduledTime);
+        if (interval < 0 || interval >= prices.length) {
+            return;
+        }
+        registry.idOf(schedule.deviceName);
+        if (schedules.get(interval) == null) {
+            schedules.set(interval, new ArrayList<>(2));
+        }
+        schedules.get(interval).add(schedule);
+    }
+
+    public boolean removeSchedule(SmartEnergyManagementSystem.DeviceSchedule schedule) {
+        int interval = intervalOf(schedule.scheduledTime);
+        List<SmartEnergyManagementSystem.DeviceSchedule> bucket =
+                interval < 0 || interval >= prices.length ? null : schedules.get(interval);
+        return bucket != null && bucket.remove(schedule);
+    }
+
+    public boolean isEnergySavingMode(int interval) {
+        return (decisions[interval] & ENERGY_SAVING) != 0;
+    }
+
+    public boolean isNightMode(int interval) {
+        return (decisions[interval] & NIGHT) != 0;
+    }
+
+    public int intervals() {
+        return prices.length;
+    }
+
+    // Interval containing the time, possibly outside [0, intervals())
+    public int intervalOf(LocalDateTime time) {
+        return (int) Math.floorDiv(Duration.between(start, time).getSeconds(), intervalMinutes * 60L);
+    }
+
+    public SmartEnergyManagementSystem.EnergyManagementResult tick(LocalDateTime currentTime, double currentTemperature,
+                                                                  double totalEnergyUsedToday, DeviceStatus status,
+                                                                  SmartEnergyManagementSystem.EnergyManagementResult result) {
+        int interval = intervalOf(currentTime);
+        if (interval < 0 || interval >= prices.length) {
+            throw new IllegalArgumentException("No plan for " + currentTime);
+        }
+        long tickStart = EngineMetrics.start();
+        int decision = decisions[interval];
+        status.ensureCapacity();
+        long[] prioritized = registry.prioritized();
+        long[] template = templates[decision];
+        for (int word = 0; word < status.reported.length; word++) {
+            status.reported[word] = word < template.length ? prioritized[word] : 0;
+            status.on[word] = word < template.length ? template[word] : 0;
+        }
+
+        // Temperature regulation
+        boolean temperatureRegulationActive = true;
+        if (currentTemperature < desiredTemperatureRange[0]) {
+            status.set(DeviceRegistry.HEATING, true);
+            status.set(DeviceRegistry.COOLING, false);
+        } else if (currentTemperature > desiredTemperatureRange[1]) {
+            status.set(DeviceRegistry.HEATING, false);
+            status.set(DeviceRegistry.COOLING, true);
+        } else {
+            status.set(DeviceRegistry.HEATING, false);
+            status.set(DeviceRegistry.COOLING, false);
+            temperatureRegulationActive = false;
+        }
+
+        // Shed a prefix of the precomputed candidates
+        double energyBeforeShedding = totalEnergyUsedToday;
+        int[] candidates = sheddingCandidates[decision];
+        for (int i = 0; i < candidates.length && totalEnergyUsedToday >= energyUsageLimit; i++) {
+            if (status.isOn(candidates[i])) {
+                status.set(candidates[i], false);
+                totalEnergyUsedToday -= 1;
+            }
+        }
+        EngineMetrics.recordDevicesShed(Math.round(energyBeforeShedding - totalEnergyUsedToday));
+
+        List<SmartEnergyManagementSystem.DeviceSchedule> bucket = schedules.get(interval);
+        if (bucket != null) {
+            for (SmartEnergyManagementSystem.DeviceSchedule schedule : bucket) {
+                if (schedule.scheduledTime.equals(currentTime)) {
+                    // Registered by addSchedule
+                    status.set(schedule.deviceId(registry), true);
+                }
+            }
+        }
+
+        result.deviceStatus = status.asMap();
+        result.energySavingMode = (decision & ENERGY_SAVING) != 0;
+        result.temperatureRegulationActive = temperatureRegulationActive;
+        result.totalEnergyUsed = totalEnergyUsedToday;
+        EngineMetrics.recordDecision(EngineMetrics.MANAGE_ENERGY, tickStart);
+        return result;
+    }
+
+    private void updateDecision(int interval) {
+        int hour = start.plusMinutes((long) interval * intervalMinutes).getHour();
+        byte decision = 0;
+        if (prices[interval] > priceThreshold) {
+            decision |= ENERGY_SAVING;
+        }
+        if (hour == 23 || hour < 6) {
+            decision |= NIGHT;
+        }
+        decisions[interval] = decision;
+    }
+}
@@ -0,0 +1,555 @@
+package activity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Append-only store for per-tick energy telemetry: the timestamp, totalEnergyUsed and the device
+// statuses of each tick. Ticks are buffered raw and sealed into compressed chunks of ticksPerChunk:
+// timestamps as delta-of-delta codes, energy readings as Gorilla-style XORs against the previous
+// reading, and each device's state (not reported, off, on) as runs over the chunk, so a device that
+// does not change costs three bits per chunk. Every chunk keeps its time bounds plus energy and
+// per-device on-tick aggregates, so range queries skip chunks outside the range and downsampling
+// folds in whole chunks that fall inside one bucket without decoding them. Timestamps have
+// millisecond precision and must not go back in time. Not thread-safe.
+public class EnergyTelemetryStore {
+
+    static final int DEFAULT_TICKS_PER_CHUNK = 1024;
+
+    // Device states in the run-length encoding
+    private static final int NOT_REPORTED = 0;
+    private static final int OFF = 1;
+    private static final int ON = 3;
+
+    private final DeviceRegistry registry;
+    private final int ticksPerChunk;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private Block open;
+    private long size;
+    private long lastMillis = Long.MIN_VALUE;
+
+    public EnergyTelemetryStore(DeviceRegistry registry) {
+        this(registry, DEFAULT_TICKS_PER_CHUNK);
+    }
+
+    public EnergyTelemetryStore(DeviceRegistry registry, int ticksPerChunk) {
+        if (ticksPerChunk <= 0) {
+            throw new IllegalArgumentException("Chunks must hold at least one tick");
+        }
+        this.registry = registry;
+        this.ticksPerChunk = ticksPerChunk;
+        this.open = new Block(ticksPerChunk);
+    }
+
+    public static class Tick {
+        final LocalDateTime time;
+        final double totalEnergyUsed;
+        final Map<String, Boolean> deviceStatus;
+
+        Tick(LocalDateTime time, double totalEnergyUsed, Map<String, Boolean> deviceStatus) {
+            this.time = time;
+            this.totalEnergyUsed = totalEnergyUsed;
+            this.deviceStatus = deviceStatus;
+        }
+
+        public LocalDateTime time() {
+            return time;
+        }
+
+        public double totalEnergyUsed() {
+            return totalEnergyUsed;
+        }
+
+        public Map<String, Boolean> deviceStatus() {
+            return deviceStatus;
+        }
+    }
+
+    public static class Summary {
+        final LocalDateTime start;
+        private final DeviceRegistry registry;
+        long ticks;
+        double sumEnergy;
+        double minEnergy = Double.POSITIVE_INFINITY;
+        double maxEnergy = Double.NEGATIVE_INFINITY;
+        long[] onTicks = new long[0];
+
+        Summary(LocalDateTime start, DeviceRegistry registry) {
+            this.start = start;
+            this.registry = registry;
+        }
+
+        public LocalDateTime start() {
+            return start;
+        }
+
+        public long ticks() {
+            return ticks;
+        }
+
+        public double averageEnergy() {
+            return ticks == 0 ? 0 : sumEnergy / ticks;
+        }
+
+        public double minEnergy() {
+            return minEnergy;
+        }
+
+        public double maxEnergy() {
+            return maxEnergy;
+        }
+
+        // Fraction of the bucket's ticks in which the device was on
+        public double onFraction(String device) {
+            int id = registry.find(device);
+            return ticks == 0 || id < 0 || id >= onTicks.length ? 0 : (double) onTicks[id] / ticks;
+        }
+
+        void addEnergy(double energy) {
+            ticks++;
+            sumEnergy += energy;
+            minEnergy = Math.min(minEnergy, energy);
+            maxEnergy = Math.max(maxEnergy, energy);
+        }
+
+        void addOnTicks(int device, long count) {
+            if (device >= onTicks.length) {
+                onTicks = Arrays.copyOf(onTicks, Math.max(device + 1, onTicks.length * 2));
+            }
+            onTicks[device] += count;
+        }
+    }
+
+    // Uncompressed ticks: the open chunk, or a decoded sealed one
+    static class Block {
+        final long[] times;
+        final double[] energies;
+        final long[][] reported;
+        final long[][] on;
+        int count;
+
+        Block(int capacity) {
+            times = new long[capacity];
+            energies = new double[capacity];
+            reported = new long[capacity][];
+            on = new long[capacity][];
+        }
+
+        int state(int tick, int device) {
+            long[] reportedBits = reported[tick];
+            if (device >= reportedBits.length * 64 || !DeviceRegistry.get(reportedBits, device)) {
+                return NOT_REPORTED;
+            }
+            return DeviceRegistry.get(on[tick], device) ? ON : OFF;
+        }
+    }
+
+    static class Chunk {
+        long firstMillis;
+        long lastMillis;
+        int count;
+        int devices;
+        double sumEnergy;
+        double minEnergy = Double.POSITIVE_INFINITY;
+        double maxEnergy = Double.NEGATIVE_INFINITY;
+        int[] onTicks;
+        long[] data;
+        long bits;
+    }
+
+    public void append(LocalDateTime time, SmartEnergyManagementSystem.EnergyManagementResult result) {
+        long[] reported = new long[Math.max(1, registry.words())];
+        long[] on = new long[reported.length];
+        for (Map.Entry<String, Boolean> device : result.deviceStatus.entrySet()) {
+            int id = registry.idOf(device.getKey());
+            if (id >= reported.length * 64) {
+                reported = Arrays.copyOf(reported, registry.words());
+                on = Arrays.copyOf(on, reported.length);
+            }
+            DeviceRegistry.set(reported, id, true);
+            DeviceRegistry.set(on, id, device.getValue());
+        }
+        append(TransactionColumns.toEpochMillis(time), result.totalEnergyUsed, reported, on);
+    }
+
+    public void append(LocalDateTime time, double totalEnergyUsed, DeviceStatus status) {
+        append(TransactionColumns.toEpochMillis(time), totalEnergyUsed, status.reported.clone(), status.on.clone());
+    }
+
+    private void append(long epochMillis, double totalEnergyUsed, long[] reported, long[] on) {
+        if (epochMillis < lastMillis) {
+            throw new IllegalArgumentException("Telemetry must be appended in time order");
+        }
+        lastMillis = epochMillis;
+        int tick = open.count++;
+        open.times[tick] = epochMillis;
+        open.energies[tick] = totalEnergyUsed;
+        open.reported[tick] = reported;
+        open.on[tick] = on;
+        size++;
+        if (open.count == ticksPerChunk) {
+            chunks.add(seal(open, registry.size()));
+            open = new Block(ticksPerChunk);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    // Bytes held by the sealed chunks' compressed data
+    public long compressedBytes() {
+        long bytes = 0;
+        for (Chunk chunk : chunks) {
+            bytes += (chunk.bits + 7) / 8;
+        }
+        return bytes;
+    }
+
+    // Ticks with from <= time < to, in time order
+    public List<Tick> range(LocalDateTime from, LocalDateTime to) {
+        long fromMillis = TransactionColumns.toEpochMillis(from);
+        long toMillis = TransactionColumns.toEpochMillis(to);
+        List<Tick> ticks = new ArrayList<>();
+        for (int i = firstChunk(fromMillis); i < chunks.size() && chunks.get(i).firstMillis < toMillis; i++) {
+            addTicks(decode(chunks.get(i)), fromMillis, toMillis, ticks);
+        }
+        addTicks(open, fromMillis, toMillis, ticks);
+        return ticks;
+    }
+
+    // Per-bucket summaries of the ticks with from <= time < to, buckets starting at from; empty
+    // buckets are left out
+    public List<Summary> downsample(LocalDateTime from, LocalDateTime to, Duration bucket) {
+        long fromMillis = TransactionColumns.toEpochMillis(from);
+        long toMillis = TransactionColumns.toEpochMillis(to);
+        long bucketMillis = bucket.toMillis();
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("Buckets must be at least one millisecond");
+        }
+        Map<Long, Summary> summaries = new HashMap<>();
+        List<Summary> ordered = new ArrayList<>();
+        for (int i = firstChunk(fromMillis); i < chunks.size() && chunks.get(i).firstMillis < toMillis; i++) {
+            Chunk chunk = chunks.get(i);
+            long firstBucket = (chunk.firstMillis - fromMillis) / bucketMillis;
+            if (chunk.firstMillis >= fromMillis && chunk.lastMillis < toMillis
+                    && firstBucket == (chunk.lastMillis - fromMillis) / bucketMillis) {
+                // The whole chunk falls into one bucket: fold in its aggregates
+                Summary summary = summary(firstBucket, fromMillis, bucketMillis, summaries, ordered);
+                summary.ticks += chunk.count;
+                summary.sumEnergy += chunk.sumEnergy;
+                summary.minEnergy = Math.min(summary.minEnergy, chunk.minEnergy);
+                summary.maxEnergy = Math.max(summary.maxEnergy, chunk.maxEnergy);
+                for (int device = 0; device < chunk.devices; device++) {
+                    if (chunk.onTicks[device] > 0) {
+                        summary.addOnTicks(device, chunk.onTicks[device]);
+                    }
+                }
+            } else {
+                addSummaries(decode(chunk), fromMillis, toMillis, bucketMillis, summaries, ordered);
+            }
+        }
+        addSummaries(open, fromMillis, toMillis, bucketMillis, summaries, ordered);
+        return ordered;
+    }
+
+    private int firstChunk(long fromMillis) {
+        int low = 0;
+        int high = chunks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunks.get(mid).lastMillis < fromMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void addTicks(Block block, long fromMillis, long toMillis, List<Tick> ticks) {
+        for (int tick = 0; tick < block.count; tick++) {
+            long millis = block.times[tick];
+            if (millis < fromMillis || millis >= toMillis) {
+                continue;
+            }
+            Map<String, Boolean> deviceStatus = new HashMap<>();
+            long[] reported = block.reported[tick];
+            for (int word = 0; word < reported.length; word++) {
+                for (long bits = reported[word]; bits != 0; bits &= bits - 1) {
+                    int device = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    deviceStatus.put(registry.name(device), DeviceRegistry.get(block.on[tick], device));
+                }
+            }
+            ticks.add(new Tick(BinaryCodec.toLocalDateTime(millis), block.energies[tick], deviceStatus));
+        }
+    }
+
+    private void addSummaries(Block block, long fromMillis, long toMillis, long bucketMillis, Map<Long, Summary> summaries,
+                              List<Summary> ordered) {
+        for (int tick = 0; tick < block.count; tick++) {
+            long millis = block.times[tick];
+            if (millis < fromMillis || millis >= toMillis) {
+                continue;
+            }
+            Summary summary = summary((millis - fromMillis) / bucketMillis, fromMillis, bucketMillis, summaries, ordered);
+            summary.addEnergy(block.energies[tick]);
+            long[] reported = block.reported[tick];
+            long[] on = block.on[tick];
+            for (int word = 0; word < reported.length; word++) {
+                for (long bits = reported[word] & on[word]; bits != 0; bits &= bits - 1) {
+                    summary.addOnTicks((word << 6) + Long.numberOfTrailingZeros(bits), 1);
+                }
+            }
+        }
+    }
+
+    private Summary summary(long index, long fromMillis, long bucketMillis, Map<Long, Summary> summaries, List<Summary> ordered) {
+        Summary summary = summaries.get(index);
+        if (summary == null) {
+            // Ticks arrive in time order, so buckets are created in order too
+            summary = new Summary(BinaryCodec.toLocalDateTime(fromMillis + index * bucketMillis), registry);
+            summaries.put(index, summary);
+            ordered.add(summary);
+        }
+        return summary;
+    }
+
+    static Chunk seal(Block block, int devices) {
+        Chunk chunk = new Chunk();
+        chunk.count = block.count;
+        chunk.devices = devices;
+        chunk.firstMillis = block.times[0];
+        chunk.lastMillis = block.times[block.count - 1];
+        chunk.onTicks = new int[devices];
+        BitWriter out = new BitWriter();
+
+        // Timestamps: raw first value, then delta-of-delta codes
+        out.write(block.times[0], 64);
+        long previousDelta = 0;
+        for (int tick = 1; tick < block.count; tick++) {
+            long delta = block.times[tick] - block.times[tick - 1];
+            long deltaOfDelta = BinaryCodec.zigzag(delta - previousDelta);
+            previousDelta = delta;
+            if (deltaOfDelta == 0) {
+                out.write(0, 1);
+            } else if (deltaOfDelta < 1 << 7) {
+                out.write(0b10, 2);
+                out.write(deltaOfDelta, 7);
+            } else if (deltaOfDelta < 1 << 9) {
+                out.write(0b110, 3);
+                out.write(deltaOfDelta, 9);
+            } else if (deltaOfDelta < 1 << 12) {
+                out.write(0b1110, 4);
+                out.write(deltaOfDelta, 12);
+            } else {
+                out.write(0b1111, 4);
+                out.write(deltaOfDelta, 64);
+            }
+        }
+
+        // Energy readings: raw first value, then XOR against the previous one
+        long previous = Double.doubleToRawLongBits(block.energies[0]);
+        out.write(previous, 64);
+        int previousLeading = Integer.MAX_VALUE;
+        int previousTrailing = 0;
+        for (int tick = 0; tick < block.count; tick++) {
+            double energy = block.energies[tick];
+            chunk.sumEnergy += energy;
+            chunk.minEnergy = Math.min(chunk.minEnergy, energy);
+            chunk.maxEnergy = Math.max(chunk.maxEnergy, energy);
+            if (tick == 0) {
+                continue;
+            }
+            long value = Double.doubleToRawLongBits(energy);
+            long xor = value ^ previous;
+            previous = value;
+            if (xor == 0) {
+                out.write(0, 1);
+                continue;
+            }
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= previousLeading && trailing >= previousTrailing) {
+                // Fits the previous window of meaningful bits
+                out.write(0b10, 2);
+                out.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                out.write(0b11, 2);
+                out.write(leading, 5);
+                out.write(meaningful & 63, 6);
+                out.write(xor >>> trailing, meaningful);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+
+        // Device states: initial state, then a flagged (run length, next state) pair per change
+        for (int device = 0; device < devices; device++) {
+            int state = block.state(0, device);
+            out.write(state, 2);
+            int runStart = 0;
+            for (int tick = 0; tick < block.count; tick++) {
+                int next = block.state(tick, device);
+                if (next != state) {
+                    out.write(1, 1);
+                    out.writeGamma(tick - runStart);
+                    out.write(next, 2);
+                    state = next;
+                    runStart = tick;
+                }
+                if (next == ON) {
+                    chunk.onTicks[device]++;
+                }
+            }
+            out.write(0, 1);
+        }
+        chunk.data = out.toArray();
+        chunk.bits = out.bits;
+        return chunk;
+    }
+
+    static Block decode(Chunk chunk) {
+        Block block = new Block(chunk.count);
+        block.count = chunk.count;
+        BitReader in = new BitReader(chunk.data);
+
+        block.times[0] = in.read(64);
+        long delta = 0;
+        for (int tick = 1; tick < chunk.count; tick++) {
+            long deltaOfDelta;
+            if (in.read(1) == 0) {
+                deltaOfDelta = 0;
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = in.read(7);
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = in.read(9);
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = in.read(12);
+            } else {
+                deltaOfDelta = in.read(64);
+            }
+            delta += BinaryCodec.unzigzag(deltaOfDelta);
+            block.times[tick] = block.times[tick - 1] + delta;
+        }
+
+        long value = in.read(64);
+        block.energies[0] = Double.longBitsToDouble(value);
+        int leading = 0;
+        int trailing = 0;
+        for (int tick = 1; tick < chunk.count; tick++) {
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    leading = (int) in.read(5);
+                    int meaningful = (int) in.read(6);
+                    trailing = 64 - leading - (meaningful == 0 ? 64 : meaningful);
+                }
+                value ^= in.read(64 - leading - trailing) << trailing;
+            }
+            block.energies[tick] = Double.longBitsToDouble(value);
+        }
+
+        int words = Math.max(1, DeviceRegistry.words(chunk.devices));
+        for (int tick = 0; tick < chunk.count; tick++) {
+            block.reported[tick] = new long[words];
+            block.on[tick] = new long[words];
+        }
+        for (int device = 0; device < chunk.devices; device++) {
+            int state = (int) in.read(2);
+            int tick = 0;
+            while (true) {
+                int runEnd = in.read(1) == 0 ? chunk.count : tick + (int) in.readGamma();
+                for (; tick < runEnd; tick++) {
+                    if (state != NOT_REPORTED) {
+                        DeviceRegistry.set(block.reported[tick], device, true);
+                        DeviceRegistry.set(block.on[tick], device, state == ON);
+                    }
+                }
+                if (runEnd == chunk.count) {
+                    break;
+                }
+                state = (int) in.read(2);
+            }
+        }
+        return block;
+    }
+
+    // Bits are written most significant first into a growing long[]
+    static class BitWriter {
+        long[] words = new long[16];
+        long bits;
+
+        void write(long value, int count) {
+            if (count == 0) {
+                return;
+            }
+            int index = (int) (bits >>> 6);
+            if (index + 1 >= words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            if (count < 64) {
+                value &= (1L << count) - 1;
+            }
+            int free = 64 - (int) (bits & 63);
+            if (count <= free) {
+                words[index] |= value << (free - count);
+            } else {
+                words[index] |= value >>> (count - free);
+                words[index + 1] |= value << (64 - (count - free));
+            }
+            bits += count;
+        }
+
+        // Elias gamma code for value >= 1
+        void writeGamma(long value) {
+            int length = 64 - Long.numberOfLeadingZeros(value);
+            write(0, length - 1);
+            write(value, length);
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words, (int) ((bits + 63) >>> 6));
+        }
+    }
+
+    static class BitReader {
+        private final long[] words;
+        private long position;
+
+        BitReader(long[] words) {
+            this.words = words;
+        }
+
+        long read(int count) {
+            if (count == 0) {
+                return 0;
+            }
+            int index = (int) (position >>> 6);
+            int offset = (int) (position & 63);
+            position += count;
+            long value = (words[index] << offset) >>> (64 - count);
+            int rest = count - (64 - offset);
+            if (rest > 0) {
+                value |= words[index + 1] >>> (64 - rest);
+            }
+            return value;
+        }
+
+        long readGamma() {
+            int zeros = 0;
+            while (read(1) == 0) {
+                zeros++;
+            }
+            return (1L << zeros) | read(zeros);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package activity;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide latency and throughput metrics for the decision engines, built on JDK APIs only:
+// LongAdder counters, log-linear (HDR-style) latency histograms and a JFR event per decision.
+// Metrics are off by default; while disabled every hook is a single volatile read and
+// start() skips the clock entirely.
+public final class EngineMetrics {
+
+    public static final String BOOK_FLIGHT = "bookFlight";
+    public static final String CHECK_FOR_FRAUD = "checkForFraud";
+    public static final String MANAGE_ENERGY = "manageEnergy";
+
+    public static final String RULE_VELOCITY = "rule.velocity";
+    public static final String RULE_LOCATION = "rule.location";
+    public static final String RULE_BLACKLIST = "rule.blacklist";
+    public static final String RULE_AMOUNT = "rule.amount";
+
+    private static volatile boolean enabled;
+
+    private static final Map<String, LongAdder> COUNTERS = new LinkedHashMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new LinkedHashMap<>();
+
+    private static final LongAdder BLACKLIST_HITS = counter("fraud.blacklistHits");
+    private static final LongAdder WINDOW_TRANSACTIONS_SCANNED = counter("fraud.windowTransactionsScanned");
+    private static final LongAdder DEVICES_SHED = counter("energy.devicesShed");
+
+    static {
+        for (String name : new String[]{BOOK_FLIGHT, CHECK_FOR_FRAUD, MANAGE_ENERGY,
+                RULE_VELOCITY, RULE_LOCATION, RULE_BLACKLIST, RULE_AMOUNT}) {
+            HISTOGRAMS.put(name, new LatencyHistogram());
+        }
+    }
+
+    private EngineMetrics() {
+    }
+
+    @Name("activity.Decision")
+    @Label("Engine Decision")
+    @Category("MO646")
+    static class DecisionEvent extends Event {
+        @Label("Engine")
+        String engine;
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void reset() {
+        COUNTERS.values().forEach(LongAdder::reset);
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+    }
+
+    // Start timestamp for a later record() call, or 0 while metrics are disabled
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // Records an engine call that began at the given start() timestamp, and emits its JFR event
+    static void recordDecision(String engine, long startNanos) {
+        if (!enabled || startNanos == 0) {
+            return;
+        }
+        HISTOGRAMS.get(engine).record(System.nanoTime() - startNanos);
+        DecisionEvent event = new DecisionEvent();
+        if (event.shouldCommit()) {
+            event.engine = engine;
+            event.commit();
+        }
+    }
+
+    // Records the evaluation time of a single rule that began at the given start() timestamp;
+    // custom pipeline rules without a histogram of their own are not timed
+    static void recordRule(String rule, long startNanos) {
+        if (!enabled || startNanos == 0) {
+            return;
+        }
+        LatencyHistogram histogram = HISTOGRAMS.get(rule);
+        if (histogram != null) {
+            histogram.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    static void recordBlacklistHit(boolean hit) {
+        if (enabled && hit) {
+            BLACKLIST_HITS.increment();
+        }
+    }
+
+    static void recordWindowScanned(int transactions) {
+        if (enabled) {
+            WINDOW_TRANSACTIONS_SCANNED.add(transactions);
+        }
+    }
+
+    static void recordDevicesShed(long devices) {
+        if (enabled && devices > 0) {
+            DEVICES_SHED.add(devices);
+        }
+    }
+
+    public static Snapshot snapshot() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        COUNTERS.forEach((name, counter) -> counters.put(name, counter.sum()));
+        Map<String, HistogramSnapshot> latencies = new LinkedHashMap<>();
+        HISTOGRAMS.forEach((name, histogram) -> latencies.put(name, histogram.snapshot()));
+        return new Snapshot(counters, latencies);
+    }
+
+    private static LongAdder counter(String name) {
+        LongAdder counter = new LongAdder();
+        COUNTERS.put(name, counter);
+        return counter;
+    }
+
+    public static class Snapshot {
+        final Map<String, Long> counters;
+        final Map<String, HistogramSnapshot> latencies;
+
+        Snapshot(Map<String, Long> counters, Map<String, HistogramSnapshot> latencies) {
+            this.counters = counters;
+            this.latencies = latencies;
+        }
+
+        public long counter(String name) {
+            return counters.getOrDefault(name, 0L);
+        }
+
+        public HistogramSnapshot latency(String name) {
+            return latencies.get(name);
+        }
+
+        // One "name value" line per counter and latency statistic, suitable for scraping
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            counters.forEach((name, value) -> out.append(name).append(' ').append(value).append('\n'));
+            latencies.forEach((name, histogram) -> {
+                out.append(name).append(".count ").append(histogram.count).append('\n');
+                out.append(name).append(".p50Nanos ").append(histogram.p50Nanos).append('\n');
+                out.append(name).append(".p99Nanos ").append(histogram.p99Nanos).append('\n');
+                out.append(name).append(".maxNanos ").append(histogram.maxNanos).append('\n');
+            });
+            return out.toString();
+        }
+    }
+
+    public static class HistogramSnapshot {
+        final long count;
+        final long p50Nanos;
+        final long p90Nanos;
+        final long p99Nanos;
+        final long maxNanos;
+
+        HistogramSnapshot(long count, long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos) {
+            this.count = count;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long p50Nanos() {
+            return p50Nanos;
+        }
+
+        public long p90Nanos() {
+            return p90Nanos;
+        }
+
+        public long p99Nanos() {
+            return p99Nanos;
+        }
+
+        public long maxNanos() {
+            return maxNanos;
+        }
+    }
+
+    // Log-linear histogram: each power of two is split into 8 linear sub-buckets, giving at most
+    // 12.5% relative error for any value up to Long.MAX_VALUE with a fixed 512-slot array.
+    static class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long value) {
+            counts.incrementAndGet(bucketOf(Math.max(0, value)));
+            max.accumulate(value);
+        }
+
+        void reset() {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+            max.reset();
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        // Upper bound of the values that fall into the bucket
+        static long upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long base = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+            return base + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        long percentile(double percentile, long count) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        HistogramSnapshot snapshot() {
+            long count = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                count += counts.get(i);
+            }
+            return new HistogramSnapshot(count, percentile(50, count), percentile(90, count), percentile(99, count), max.get());
+        }
+    }
+}
@@ -13,32 +13,76 @@ public class FlightBookingSystem {
         boolean pointsUsed;
 
         public BookingResult(boolean confirmation, double totalPrice, double refundAmount, boolean pointsUsed) {
+            set(confirmation, totalPrice, refundAmount, pointsUsed);
+        }
+
+        // Empty holder for the allocation-free bookFlight overload
+        public BookingResult() {
+        }
+
+        BookingResult set(boolean confirmation, double totalPrice, double refundAmount, boolean pointsUsed) {
             this.confirmation = confirmation;
             this.totalPrice = totalPrice;
             this.refundAmount = refundAmount;
             this.pointsUsed = pointsUsed;
+            return this;
         }
     }
 
     public BookingResult bookFlight(int passengers, LocalDateTime bookingTime, int availableSeats,
                                     double currentPrice, int previousSales, boolean isCancellation,
                                     LocalDateTime departureTime, int rewardPointsAvailable) {
-        double finalPrice = 0;
-        double refundAmount = 0;
-        boolean confirmation = false;
-        boolean pointsUsed = false;
+        return bookFlight(passengers, bookingTime, availableSeats, currentPrice, previousSales, isCancellation,
+                departureTime, rewardPointsAvailable, new BookingResult());
+    }
+
+    // Writes the outcome into a caller-owned holder instead of allocating a new BookingResult
+    public BookingResult bookFlight(int passengers, LocalDateTime bookingTime, int availableSeats,
+                                    double currentPrice, int previousSales, boolean isCancellation,
+                                    LocalDateTime departureTime, int rewardPointsAvailable, BookingResult result) {
+        long start = EngineMetrics.start();
 
         // Check if enough seats are available
         if (passengers > availableSeats) {
-            return new BookingResult(confirmation, finalPrice, refundAmount, pointsUsed);
+            result.set(false, 0, 0, false);
+        } else {
+            long hoursToDeparture = Duration.between(bookingTime, departureTime).toHours();
+            double finalPrice = fare(passengers, currentPrice, previousSales, hoursToDeparture);
+            settle(finalPrice, hoursToDeparture, isCancellation, rewardPointsAvailable, result);
         }
 
+        EngineMetrics.recordDecision(EngineMetrics.BOOK_FLIGHT, start);
+        return result;
+    }
+
+    // Same as bookFlight, but the fare before reward points comes from the pricing cache, which prices
+    // at the lower bound of the request's fare bucket and sales band
+    public BookingResult bookFlight(PricingCache pricingCache, String flightId, int passengers, LocalDateTime bookingTime,
+                                    int availableSeats, double currentPrice, int previousSales, boolean isCancellation,
+                                    LocalDateTime departureTime, int rewardPointsAvailable) {
+        long start = EngineMetrics.start();
+        BookingResult result = new BookingResult();
+
+        // Check if enough seats are available
+        if (passengers > availableSeats) {
+            result.set(false, 0, 0, false);
+        } else {
+            long hoursToDeparture = Duration.between(bookingTime, departureTime).toHours();
+            double finalPrice = pricingCache.fare(flightId, passengers, currentPrice, previousSales, hoursToDeparture);
+            settle(finalPrice, hoursToDeparture, isCancellation, rewardPointsAvailable, result);
+        }
+
+        EngineMetrics.recordDecision(EngineMetrics.BOOK_FLIGHT, start);
+        return result;
+    }
+
+    // Fare before reward points: demand pricing, last-minute fee and group discount
+    static double fare(int passengers, double currentPrice, int previousSales, long hoursToDeparture) {
         // Dynamic pricing based on sales and demand index
         double priceFactor = (previousSales / 100.0) * 0.8;
-        finalPrice = currentPrice * priceFactor * passengers;
+        double finalPrice = currentPrice * priceFactor * passengers;
 
         // Last-minute fee
-        long hoursToDeparture = Duration.between(bookingTime, departureTime).toHours();
         if (hoursToDeparture < 24) {
             finalPrice += 100;
         }
@@ -47,6 +91,13 @@ public class FlightBookingSystem {
         if (passengers > 4) {
             finalPrice *= 0.95;  // 5% discount
         }
+        return finalPrice;
+    }
+
+    private BookingResult settle(double finalPrice, long hoursToDeparture, boolean isCancellation, int rewardPointsAvailable,
+                                 BookingResult result) {
+        double refundAmount = 0;
+        boolean pointsUsed = false;
 
         // Reward points redemption
         if (rewardPointsAvailable > 0) {
@@ -61,10 +112,62 @@ public class FlightBookingSystem {
             } else {
                 refundAmount = finalPrice * 0.5;
             }
-            return new BookingResult(false, 0, refundAmount, false);
+            return result.set(false, 0, refundAmount, false);
+        }
+
+        return result.set(true, finalPrice, refundAmount, pointsUsed);
+    }
+
+    // Books against a shared SeatInventory instead of a caller-supplied seat count. Seats are reserved
+    // atomically before pricing, so concurrent bookings can never oversell the flight; cancellations
+    // return their seats to the flight.
+    public BookingResult bookFlight(SeatInventory inventory, String flightId, int passengers, LocalDateTime bookingTime,
+                                    double currentPrice, int previousSales, boolean isCancellation,
+                                    LocalDateTime departureTime, int rewardPointsAvailable) {
+        if (isCancellation) {
+            int capacity = inventory.capacity(flightId);
+            BookingResult result = bookFlight(passengers, bookingTime, capacity, currentPrice, previousSales, true,
+                    departureTime, rewardPointsAvailable);
+            if (passengers <= capacity) {
+                inventory.release(flightId, passengers);
+            }
+            return result;
+        }
+
+        if (!inventory.reserve(flightId, passengers)) {
+            return new BookingResult(false, 0, 0, false);
+        }
+        // The seats are already held for this booking
+        return bookFlight(passengers, bookingTime, passengers, currentPrice, previousSales, false,
+                departureTime, rewardPointsAvailable);
+    }
+
+    // Redeems points through the ledger instead of trusting rewardPointsAvailable: the points are
+    // debited before the booking is priced and credited back if it is not confirmed, so concurrent
+    // bookings can never spend the same points twice. A booking the member cannot cover is priced
+    // without points. bookingId makes a retried booking debit at most once; a booking that is not
+    // confirmed refunds its debit and frees the key, so retrying it debits again. A cancellation
+    // credits back the points the booking redeemed, and its cash refund is net of those points.
+    public BookingResult bookFlight(RewardPointsLedger ledger, String memberId, String bookingId, int passengers,
+                                    LocalDateTime bookingTime, int availableSeats, double currentPrice, int previousSales,
+                                    boolean isCancellation, LocalDateTime departureTime, int rewardPointsToRedeem) {
+        if (rewardPointsToRedeem <= 0) {
+            return bookFlight(passengers, bookingTime, availableSeats, currentPrice, previousSales, isCancellation,
+                    departureTime, rewardPointsToRedeem);
         }
-        confirmation = true;
 
-        return new BookingResult(confirmation, finalPrice, refundAmount, pointsUsed);
+        String redeemKey = bookingId + "/redeem";
+        if (isCancellation) {
+            boolean refunded = ledger.refund(memberId, rewardPointsToRedeem, redeemKey);
+            return bookFlight(passengers, bookingTime, availableSeats, currentPrice, previousSales, true,
+                    departureTime, refunded ? rewardPointsToRedeem : 0);
+        }
+        boolean debited = ledger.debit(memberId, rewardPointsToRedeem, redeemKey);
+        BookingResult result = bookFlight(passengers, bookingTime, availableSeats, currentPrice, previousSales, false,
+                departureTime, debited ? rewardPointsToRedeem : 0);
+        if (debited && !result.confirmation) {
+            ledger.refund(memberId, rewardPointsToRedeem, redeemKey);
+        }
+        return result;
     }
 }
@@ -0,0 +1,238 @@
+package activity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Replays a transaction file through a FraudRulePipeline in a single sequential pass. Lines have the
+// form "account,timestamp,amount,location" (ISO-8601 local timestamp; an optional header line starting
+// with "account" is skipped). The reader hands batches of events to worker threads by account hash;
+// each worker scores an event against that account's earlier events, trimmed to the last
+// historyMinutes, so the cost is linear in the file size instead of quadratic. With each account's
+// lines in time order and historyMinutes covering the longest rule window, every decision equals
+// checkForFraud over the account's full preceding history. Every rule runs once per event, without
+// the pipeline's skipping of decided outcomes, and the decision and the rule hits come from that one
+// pass: a rule's hits count every event on which it fires, even if another rule had already decided
+// the outcome, so that a threshold's effect is visible regardless of rule order.
+public class FraudBacktestRunner {
+
+    private static final int BATCH_SIZE = 512;
+    private static final List<Event> END_OF_INPUT = Collections.emptyList();
+
+    private final FraudRulePipeline pipeline;
+    private final BlacklistIndex blacklist;
+    private final int historyMinutes;
+    private final int workers;
+
+    public FraudBacktestRunner(FraudRulePipeline pipeline, BlacklistIndex blacklist, int historyMinutes, int workers) {
+        this.pipeline = pipeline;
+        this.blacklist = blacklist;
+        this.historyMinutes = historyMinutes;
+        this.workers = workers;
+    }
+
+    static class Event {
+        final String accountId;
+        final FraudDetectionSystem.Transaction transaction;
+
+        Event(String accountId, FraudDetectionSystem.Transaction transaction) {
+            this.accountId = accountId;
+            this.transaction = transaction;
+        }
+    }
+
+    public static class BacktestReport {
+        long events;
+        long fraudulent;
+        long blocked;
+        long verificationRequired;
+        long elapsedNanos;
+        final Map<String, Long> ruleHits = new LinkedHashMap<>();
+
+        public long events() {
+            return events;
+        }
+
+        public double blockRate() {
+            return events == 0 ? 0 : (double) blocked / events;
+        }
+
+        public double verificationRate() {
+            return events == 0 ? 0 : (double) verificationRequired / events;
+        }
+
+        public double fraudRate() {
+            return events == 0 ? 0 : (double) fraudulent / events;
+        }
+
+        public double eventsPerSecond() {
+            return elapsedNanos == 0 ? 0 : events * 1e9 / elapsedNanos;
+        }
+
+        public long ruleHits(String rule) {
+            return ruleHits.getOrDefault(rule, 0L);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append("events ").append(events).append('\n');
+            out.append("blockRate ").append(blockRate()).append('\n');
+            out.append("verificationRate ").append(verificationRate()).append('\n');
+            out.append("fraudRate ").append(fraudRate()).append('\n');
+            out.append("eventsPerSecond ").append(Math.round(eventsPerSecond())).append('\n');
+            ruleHits.forEach((rule, hits) -> out.append(rule).append(".hits ").append(hits).append('\n'));
+            return out.toString();
+        }
+    }
+
+    public BacktestReport run(Path file) throws IOException {
+        long start = System.nanoTime();
+
+        List<BlockingQueue<List<Event>>> queues = new ArrayList<>(workers);
+        List<Future<BacktestReport>> results = new ArrayList<>(workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                BlockingQueue<List<Event>> queue = new ArrayBlockingQueue<>(16);
+                queues.add(queue);
+                results.add(executor.submit(() -> score(queue)));
+            }
+            read(file, queues);
+
+            BacktestReport report = new BacktestReport();
+            for (Future<BacktestReport> result : results) {
+                BacktestReport partial = result.get();
+                report.events += partial.events;
+                report.fraudulent += partial.fraudulent;
+                report.blocked += partial.blocked;
+                report.verificationRequired += partial.verificationRequired;
+                partial.ruleHits.forEach((rule, hits) -> report.ruleHits.merge(rule, hits, Long::sum));
+            }
+            report.elapsedNanos = System.nanoTime() - start;
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Backtest interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Backtest worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void read(Path file, List<BlockingQueue<List<Event>>> queues) throws IOException, InterruptedException {
+        List<List<Event>> batches = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            batches.add(new ArrayList<>(BATCH_SIZE));
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || (lineNumber == 1 && line.startsWith("account"))) {
+                    continue;
+                }
+                Event event = parse(line, lineNumber);
+                int worker = Math.floorMod(event.accountId.hashCode(), workers);
+                List<Event> batch = batches.get(worker);
+                batch.add(event);
+                if (batch.size() == BATCH_SIZE) {
+                    queues.get(worker).put(batch);
+                    batches.set(worker, new ArrayList<>(BATCH_SIZE));
+                }
+            }
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                if (!batches.get(i).isEmpty()) {
+                    queues.get(i).put(batches.get(i));
+                }
+                queues.get(i).put(END_OF_INPUT);
+            }
+        }
+    }
+
+    static Event parse(String line, int lineNumber) {
+        String[] fields = line.split(",", 4);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": expected account,timestamp,amount,location");
+        }
+        try {
+            FraudDetectionSystem.Transaction transaction = new FraudDetectionSystem.Transaction(
+                    Double.parseDouble(fields[2]), LocalDateTime.parse(fields[1]), fields[3]);
+            return new Event(fields[0], transaction);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    private BacktestReport score(BlockingQueue<List<Event>> queue) throws InterruptedException {
+        try {
+            return scoreAll(queue);
+        } catch (RuntimeException e) {
+            // Keep consuming so that the reader never blocks on a dead worker
+            List<Event> batch;
+            do {
+                batch = queue.take();
+            } while (batch != END_OF_INPUT);
+            throw e;
+        }
+    }
+
+    private BacktestReport scoreAll(BlockingQueue<List<Event>> queue) throws InterruptedException {
+        BacktestReport report = new BacktestReport();
+        Map<String, List<FraudDetectionSystem.Transaction>> windows = new HashMap<>();
+        FraudDetectionSystem.FraudCheckResult result = new FraudDetectionSystem.FraudCheckResult();
+        // Counted here rather than read from the pipeline, which other users may share during the run
+        List<FraudRule> rules = pipeline.rules();
+        long[] ruleHits = new long[rules.size()];
+        List<Event> batch;
+        while ((batch = queue.take()) != END_OF_INPUT) {
+            for (Event event : batch) {
+                List<FraudDetectionSystem.Transaction> window = windows.computeIfAbsent(event.accountId, id -> new ArrayList<>());
+                FraudDetectionSystem.Transaction transaction = event.transaction;
+                int expired = 0;
+                while (expired < window.size()
+                        && Duration.between(window.get(expired).timestamp, transaction.timestamp).toMinutes() > historyMinutes) {
+                    expired++;
+                }
+                window.subList(0, expired).clear();
+
+                pipeline.evaluateAll(transaction, window, blacklist, result, ruleHits);
+                window.add(transaction);
+
+                report.events++;
+                if (result.isFraudulent) {
+                    report.fraudulent++;
+                }
+                if (result.isBlocked) {
+                    report.blocked++;
+                }
+                if (result.verificationRequired) {
+                    report.verificationRequired++;
+                }
+            }
+        }
+        for (int i = 0; i < ruleHits.length; i++) {
+            report.ruleHits.merge(rules.get(i).name(), ruleHits[i], Long::sum);
+        }
+        return report;
+    }
+}
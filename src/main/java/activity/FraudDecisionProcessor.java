@@ -0,0 +1,179 @@
+package activity;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Backpressure-aware fraud scoring stage. Transactions are routed to a fixed number of lanes by
+// account key; each lane owns a StreamingFraudScorer and is drained by at most one task at a time,
+// so decisions of one account are emitted in arrival order while different lanes run in parallel.
+// Lanes score in micro-batches and hand decisions to a single emitter task, the only caller of the
+// blocking SubmissionPublisher.submit. One upstream item is requested per decision published, so at
+// most bufferSize transactions are in flight and slow subscribers stall upstream demand.
+// Events of one account must arrive in timestamp order; an out-of-order event fails the stream.
+public class FraudDecisionProcessor extends SubmissionPublisher<FraudDetectionSystem.FraudCheckResult>
+        implements Flow.Processor<FraudDetectionSystem.Transaction, FraudDetectionSystem.FraudCheckResult> {
+
+    private final Function<FraudDetectionSystem.Transaction, String> accountKey;
+    private final BlacklistIndex blacklist;
+    private final Executor executor;
+    private final int bufferSize;
+    private final int batchSize;
+    private final Lane[] lanes;
+
+    private final Queue<Decision> decisions = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean emitScheduled = new AtomicBoolean();
+    private final AtomicLong inFlight = new AtomicLong();
+    private volatile Flow.Subscription upstream;
+    private volatile boolean upstreamDone;
+
+    public FraudDecisionProcessor(Function<FraudDetectionSystem.Transaction, String> accountKey, BlacklistIndex blacklist,
+                                  int parallelism) {
+        this(accountKey, blacklist, parallelism, 256, 32, ForkJoinPool.commonPool());
+    }
+
+    public FraudDecisionProcessor(Function<FraudDetectionSystem.Transaction, String> accountKey, BlacklistIndex blacklist,
+                                  int parallelism, int bufferSize, int batchSize, Executor executor) {
+        super(executor, bufferSize);
+        this.accountKey = accountKey;
+        this.blacklist = blacklist;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.lanes = new Lane[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    // A decision that still knows which transaction and account it belongs to
+    public static class Decision extends FraudDetectionSystem.FraudCheckResult {
+        final String accountId;
+        final FraudDetectionSystem.Transaction transaction;
+
+        Decision(String accountId, FraudDetectionSystem.Transaction transaction, FraudDetectionSystem.FraudCheckResult result) {
+            super(result.isFraudulent, result.isBlocked, result.verificationRequired, result.riskScore);
+            this.accountId = accountId;
+            this.transaction = transaction;
+        }
+
+        public String accountId() {
+            return accountId;
+        }
+
+        public FraudDetectionSystem.Transaction transaction() {
+            return transaction;
+        }
+    }
+
+    private class Lane {
+        final Queue<FraudDetectionSystem.Transaction> queue = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final StreamingFraudScorer scorer = new StreamingFraudScorer();
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            int processed = 0;
+            FraudDetectionSystem.Transaction transaction;
+            while (processed < batchSize && (transaction = queue.poll()) != null) {
+                String accountId = accountKey.apply(transaction);
+                try {
+                    decisions.offer(new Decision(accountId, transaction, scorer.score(accountId, transaction, blacklist)));
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+                processed++;
+            }
+            if (processed > 0) {
+                scheduleEmit();
+            }
+            scheduled.set(false);
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void scheduleEmit() {
+        if (emitScheduled.compareAndSet(false, true)) {
+            executor.execute(this::emit);
+        }
+    }
+
+    private void emit() {
+        int published = 0;
+        Decision decision;
+        while (published < batchSize && (decision = decisions.poll()) != null) {
+            try {
+                submit(decision);
+            } catch (IllegalStateException e) {
+                // Closed after a failure
+                return;
+            }
+            published++;
+        }
+        if (published > 0) {
+            inFlight.addAndGet(-published);
+            upstream.request(published);
+        }
+        emitScheduled.set(false);
+        if (!decisions.isEmpty()) {
+            scheduleEmit();
+        } else {
+            completeIfDrained();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        subscription.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(FraudDetectionSystem.Transaction transaction) {
+        inFlight.incrementAndGet();
+        int hash = accountKey.apply(transaction).hashCode();
+        Lane lane = lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+        lane.queue.offer(transaction);
+        lane.schedule();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        completeIfDrained();
+    }
+
+    private void completeIfDrained() {
+        if (upstreamDone && inFlight.get() == 0) {
+            close();
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        upstream.cancel();
+        closeExceptionally(e);
+    }
+}
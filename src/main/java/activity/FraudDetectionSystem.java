@@ -16,6 +16,18 @@ public class FraudDetectionSystem {
             this.timestamp = timestamp;
             this.location = location;
         }
+
+        public double amount() {
+            return amount;
+        }
+
+        public LocalDateTime timestamp() {
+            return timestamp;
+        }
+
+        public String location() {
+            return location;
+        }
     }
 
     public static class FraudCheckResult {
@@ -25,55 +37,186 @@ public class FraudDetectionSystem {
         int riskScore;
 
         public FraudCheckResult(boolean isFraudulent, boolean isBlocked, boolean verificationRequired, int riskScore) {
+            set(isFraudulent, isBlocked, verificationRequired, riskScore);
+        }
+
+        // Empty holder for the allocation-free checkForFraud overloads
+        public FraudCheckResult() {
+        }
+
+        FraudCheckResult set(boolean isFraudulent, boolean isBlocked, boolean verificationRequired, int riskScore) {
             this.isFraudulent = isFraudulent;
             this.isBlocked = isBlocked;
             this.verificationRequired = verificationRequired;
             this.riskScore = riskScore;
+            return this;
+        }
+    }
+
+    private final FraudRulePipeline pipeline;
+
+    public FraudDetectionSystem() {
+        this(FraudRulePipeline.standard());
+    }
+
+    // Rules used by the list-based checks. The columnar, mapped-log and streaming checks gather
+    // precomputed inputs for the standard rules only, so they reject any other pipeline.
+    public FraudDetectionSystem(FraudRulePipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    boolean usesStandardRules() {
+        return pipeline.isStandard();
+    }
+
+    private void requireStandardRules() {
+        if (!pipeline.isStandard()) {
+            throw new IllegalStateException("Only the list-based checkForFraud supports a custom rule pipeline");
         }
     }
 
     public FraudCheckResult checkForFraud(Transaction currentTransaction, List<Transaction> previousTransactions, List<String> blacklistedLocations) {
+        long start = EngineMetrics.start();
+        FraudCheckResult result = pipeline.evaluate(currentTransaction, previousTransactions, blacklistedLocations::contains,
+                new FraudCheckResult());
+        EngineMetrics.recordDecision(EngineMetrics.CHECK_FOR_FRAUD, start);
+        return result;
+    }
+
+    public FraudCheckResult checkForFraud(Transaction currentTransaction, List<Transaction> previousTransactions, BlacklistIndex blacklist) {
+        return checkForFraud(currentTransaction, previousTransactions, blacklist, new FraudCheckResult());
+    }
+
+    // Writes the outcome into a caller-owned holder instead of allocating a new FraudCheckResult
+    public FraudCheckResult checkForFraud(Transaction currentTransaction, List<Transaction> previousTransactions, BlacklistIndex blacklist,
+                                          FraudCheckResult result) {
+        long start = EngineMetrics.start();
+        pipeline.evaluate(currentTransaction, previousTransactions, blacklist, result);
+        EngineMetrics.recordDecision(EngineMetrics.CHECK_FOR_FRAUD, start);
+        return result;
+    }
+
+    public FraudCheckResult checkForFraud(double amount, long epochMillis, int locationId,
+                                          TransactionColumns previousTransactions, BlacklistIndex blacklist) {
+        return checkForFraud(amount, epochMillis, locationId, previousTransactions, blacklist, new FraudCheckResult());
+    }
+
+    // Columnar check that allocates nothing: the outcome goes into the caller-owned holder
+    public FraudCheckResult checkForFraud(double amount, long epochMillis, int locationId,
+                                          TransactionColumns previousTransactions, BlacklistIndex blacklist, FraudCheckResult result) {
+        requireStandardRules();
+        long start = EngineMetrics.start();
+
+        // Blacklist check first: a hit fixes the block and the score, so the history scan is skipped
+        boolean blacklisted = blacklist.contains(previousTransactions.locations().name(locationId));
+        EngineMetrics.recordRule(EngineMetrics.RULE_BLACKLIST, start);
+
+        // Check for excessive transactions in the last hour
+        long ruleStart = EngineMetrics.start();
+        int recentTransactionCount = 0;
+        if (!blacklisted) {
+            recentTransactionCount = previousTransactions.countWithin(epochMillis, TransactionColumns.ONE_HOUR_WINDOW_MILLIS);
+            EngineMetrics.recordRule(EngineMetrics.RULE_VELOCITY, ruleStart);
+            EngineMetrics.recordWindowScanned(previousTransactions.size());
+        }
+
+        // Check for location change within a short time frame
+        ruleStart = EngineMetrics.start();
+        int last = previousTransactions.size() - 1;
+        boolean quickLocationChange = last >= 0
+                && epochMillis - previousTransactions.epochMillis(last) < TransactionColumns.LOCATION_CHANGE_WINDOW_MILLIS
+                && previousTransactions.locationId(last) != locationId;
+        EngineMetrics.recordRule(EngineMetrics.RULE_LOCATION, ruleStart);
+
+        evaluate(amount, recentTransactionCount, quickLocationChange, blacklisted, result);
+        EngineMetrics.recordDecision(EngineMetrics.CHECK_FOR_FRAUD, start);
+        return result;
+    }
+
+    // Reads the account's history from the persistent log; only the records inside the window are visited
+    public FraudCheckResult checkForFraud(Transaction currentTransaction, String accountId, MappedTransactionLog previousTransactions,
+                                          BlacklistIndex blacklist) {
+        requireStandardRules();
+        long start = EngineMetrics.start();
+        long epochMillis = TransactionColumns.toEpochMillis(currentTransaction.timestamp);
+
+        // Blacklist check first: a hit fixes the block and the score, so the window walk is skipped
+        boolean blacklisted = blacklist.contains(currentTransaction.location);
+        EngineMetrics.recordRule(EngineMetrics.RULE_BLACKLIST, start);
+
+        // Check for excessive transactions in the last hour
+        long ruleStart = EngineMetrics.start();
+        int recentTransactionCount = 0;
+        if (!blacklisted) {
+            recentTransactionCount = previousTransactions.countWithin(accountId, epochMillis, TransactionColumns.ONE_HOUR_WINDOW_MILLIS);
+            EngineMetrics.recordRule(EngineMetrics.RULE_VELOCITY, ruleStart);
+            EngineMetrics.recordWindowScanned(recentTransactionCount);
+        }
+
+        // Check for location change within a short time frame
+        ruleStart = EngineMetrics.start();
+        long last = previousTransactions.lastRecord(accountId);
+        boolean quickLocationChange = last >= 0
+                && epochMillis - previousTransactions.epochMillis(last) < TransactionColumns.LOCATION_CHANGE_WINDOW_MILLIS
+                && previousTransactions.locationId(last) != previousTransactions.locations().find(currentTransaction.location);
+        EngineMetrics.recordRule(EngineMetrics.RULE_LOCATION, ruleStart);
+
+        FraudCheckResult result = evaluate(currentTransaction.amount, recentTransactionCount, quickLocationChange, blacklisted,
+                new FraudCheckResult());
+        EngineMetrics.recordDecision(EngineMetrics.CHECK_FOR_FRAUD, start);
+        return result;
+    }
+
+    // Applies the fraud rules once the history-dependent inputs have been gathered, so that
+    // alternative history sources (e.g. the streaming scorer) produce identical results.
+    FraudCheckResult evaluate(Transaction currentTransaction, int recentTransactionCount, Transaction lastTransaction, boolean blacklisted) {
+        requireStandardRules();
+        return evaluate(currentTransaction.amount, recentTransactionCount, isQuickLocationChange(lastTransaction, currentTransaction),
+                blacklisted, new FraudCheckResult());
+    }
+
+    static boolean isQuickLocationChange(Transaction lastTransaction, Transaction currentTransaction) {
+        if (lastTransaction == null) {
+            return false;
+        }
+        long minutesSinceLastTransaction = Duration.between(lastTransaction.timestamp, currentTransaction.timestamp).toMinutes();
+        return minutesSinceLastTransaction < 30 && !lastTransaction.location.equals(currentTransaction.location);
+    }
+
+    FraudCheckResult evaluate(double amount, int recentTransactionCount, boolean quickLocationChange, boolean blacklisted,
+                              FraudCheckResult result) {
         boolean isFraudulent = false;
         boolean isBlocked = false;
         boolean verificationRequired = false;
         int riskScore = 0;
 
         // Check transaction amount
-        if (currentTransaction.amount > 10000) {
+        if (amount > 10000) {
             isFraudulent = true;
             verificationRequired = true;
             riskScore += 50;
         }
 
         // Check for excessive transactions in the last hour
-        int recentTransactionCount = 0;
-        for (Transaction transaction : previousTransactions) {
-            if (Duration.between(transaction.timestamp, currentTransaction.timestamp).toMinutes() <= 60) {
-                recentTransactionCount++;
-            }
-        }
         if (recentTransactionCount > 10) {
             isBlocked = true;
             riskScore += 30;
         }
 
         // Check for location change within a short time frame
-        if (!previousTransactions.isEmpty()) {
-            Transaction lastTransaction = previousTransactions.get(previousTransactions.size() - 1);
-            long minutesSinceLastTransaction = Duration.between(lastTransaction.timestamp, currentTransaction.timestamp).toMinutes();
-            if (minutesSinceLastTransaction < 30 && !lastTransaction.location.equals(currentTransaction.location)) {
-                isFraudulent = true;
-                verificationRequired = true;
-                riskScore += 20;
-            }
+        if (quickLocationChange) {
+            isFraudulent = true;
+            verificationRequired = true;
+            riskScore += 20;
         }
 
         // Blacklist check
-        if (blacklistedLocations.contains(currentTransaction.location)) {
+        if (blacklisted) {
             isBlocked = true;
             riskScore = 100;
         }
+        EngineMetrics.recordBlacklistHit(blacklisted);
 
-        return new FraudCheckResult(isFraudulent, isBlocked, verificationRequired, riskScore);
+        return result.set(isFraudulent, isBlocked, verificationRequired, riskScore);
     }
 }
@@ -0,0 +1,113 @@
+package activity;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+// One stage of a FraudRulePipeline. Rules write into a shared Evaluation and tell the pipeline,
+// before they run, whether they could still change it, so decided outcomes skip the remaining work.
+public interface FraudRule {
+
+    String name();
+
+    // Relative evaluation cost; the pipeline runs cheaper rules first
+    int cost();
+
+    // False once every output this rule can set has already been decided
+    boolean canChange(Evaluation evaluation);
+
+    // Applies the rule and returns whether it fired
+    boolean apply(Evaluation evaluation);
+
+    // Mutable state of one check. The pipeline reuses one instance per thread, so rules must not keep
+    // a reference to it after apply returns.
+    class Evaluation {
+        FraudDetectionSystem.Transaction currentTransaction;
+        List<FraudDetectionSystem.Transaction> previousTransactions;
+        Predicate<String> blacklist;
+
+        boolean isFraudulent;
+        boolean isBlocked;
+        boolean verificationRequired;
+        int riskScore;
+        // Set by an overriding rule (the blacklist); later score additions are ignored
+        boolean riskScoreFinal;
+
+        public Evaluation(FraudDetectionSystem.Transaction currentTransaction,
+                          List<FraudDetectionSystem.Transaction> previousTransactions, Predicate<String> blacklist) {
+            reset(currentTransaction, previousTransactions, blacklist);
+        }
+
+        Evaluation reset(FraudDetectionSystem.Transaction currentTransaction,
+                         List<FraudDetectionSystem.Transaction> previousTransactions, Predicate<String> blacklist) {
+            this.currentTransaction = currentTransaction;
+            this.previousTransactions = previousTransactions;
+            this.blacklist = blacklist;
+            isFraudulent = false;
+            isBlocked = false;
+            verificationRequired = false;
+            riskScore = 0;
+            riskScoreFinal = false;
+            return this;
+        }
+
+        public FraudDetectionSystem.Transaction currentTransaction() {
+            return currentTransaction;
+        }
+
+        public List<FraudDetectionSystem.Transaction> previousTransactions() {
+            return previousTransactions;
+        }
+
+        public boolean isBlacklisted(String location) {
+            return blacklist.test(location);
+        }
+
+        public boolean isFraudulent() {
+            return isFraudulent;
+        }
+
+        public boolean isBlocked() {
+            return isBlocked;
+        }
+
+        public boolean isVerificationRequired() {
+            return verificationRequired;
+        }
+
+        public int riskScore() {
+            return riskScore;
+        }
+
+        public boolean isRiskScoreFinal() {
+            return riskScoreFinal;
+        }
+
+        // Marks the transaction as fraudulent and requiring verification
+        public void flag(int score) {
+            isFraudulent = true;
+            verificationRequired = true;
+            addRisk(score);
+        }
+
+        public void block(int score) {
+            isBlocked = true;
+            addRisk(score);
+        }
+
+        public void blockWithFinalScore(int score) {
+            isBlocked = true;
+            riskScore = score;
+            riskScoreFinal = true;
+        }
+
+        public boolean isFlagged() {
+            return isFraudulent && verificationRequired;
+        }
+
+        private void addRisk(int score) {
+            if (!riskScoreFinal) {
+                riskScore += score;
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package activity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+// Runs fraud rules cheapest first and stops evaluating rules that can no longer change the result.
+// With the standard rules a blacklisted location fixes isBlocked and riskScore, so the history scan
+// of the velocity rule is skipped entirely. The outcome is independent of rule order.
+public class FraudRulePipeline {
+
+    // One reusable evaluation per thread keeps evaluate allocation-free; pipelines are shared across threads
+    private static final ThreadLocal<FraudRule.Evaluation> EVALUATIONS =
+            ThreadLocal.withInitial(() -> new FraudRule.Evaluation(null, null, null));
+
+    private final FraudRule[] rules;
+    private final LongAdder[] hits;
+    // Built by standard(): the precomputed-input checks hard-code exactly these rules
+    private final boolean standard;
+
+    public FraudRulePipeline(List<FraudRule> rules) {
+        this(rules, false);
+    }
+
+    private FraudRulePipeline(List<FraudRule> rules, boolean standard) {
+        this.standard = standard;
+        List<FraudRule> sorted = new ArrayList<>(rules);
+        sorted.sort(Comparator.comparingInt(FraudRule::cost));
+        this.rules = sorted.toArray(new FraudRule[0]);
+        this.hits = new LongAdder[this.rules.length];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = new LongAdder();
+        }
+    }
+
+    // The rules and thresholds of the original checkForFraud
+    public static FraudRulePipeline standard() {
+        return new FraudRulePipeline(Arrays.asList(new AmountRule(10000), new VelocityRule(60, 10),
+                new LocationHopRule(30), new BlacklistRule()), true);
+    }
+
+    boolean isStandard() {
+        return standard;
+    }
+
+    public FraudDetectionSystem.FraudCheckResult evaluate(FraudDetectionSystem.Transaction currentTransaction,
+                                                          List<FraudDetectionSystem.Transaction> previousTransactions,
+                                                          Predicate<String> blacklist, FraudDetectionSystem.FraudCheckResult result) {
+        FraudRule.Evaluation evaluation = EVALUATIONS.get().reset(currentTransaction, previousTransactions, blacklist);
+        for (int i = 0; i < rules.length; i++) {
+            FraudRule rule = rules[i];
+            if (!rule.canChange(evaluation)) {
+                continue;
+            }
+            long start = EngineMetrics.start();
+            if (rule.apply(evaluation)) {
+                hits[i].increment();
+            }
+            EngineMetrics.recordRule(rule.name(), start);
+        }
+        result.set(evaluation.isFraudulent, evaluation.isBlocked, evaluation.verificationRequired, evaluation.riskScore);
+        // Keep the caller's history from staying reachable through the thread's evaluation
+        evaluation.reset(null, null, null);
+        return result;
+    }
+
+    // Applies every rule, in cost order and without skipping decided ones, and adds each rule that
+    // fired to ruleHits (indexed like rules()). The result equals evaluate's; the pipeline's own hit
+    // counters are left alone, so a backtest does not pollute a pipeline shared with live traffic.
+    void evaluateAll(FraudDetectionSystem.Transaction currentTransaction, List<FraudDetectionSystem.Transaction> previousTransactions,
+                     Predicate<String> blacklist, FraudDetectionSystem.FraudCheckResult result, long[] ruleHits) {
+        FraudRule.Evaluation evaluation = EVALUATIONS.get().reset(currentTransaction, previousTransactions, blacklist);
+        for (int i = 0; i < rules.length; i++) {
+            FraudRule rule = rules[i];
+            long start = EngineMetrics.start();
+            if (rule.apply(evaluation)) {
+                ruleHits[i]++;
+            }
+            EngineMetrics.recordRule(rule.name(), start);
+        }
+        result.set(evaluation.isFraudulent, evaluation.isBlocked, evaluation.verificationRequired, evaluation.riskScore);
+        evaluation.reset(null, null, null);
+    }
+
+    public List<FraudRule> rules() {
+        return Collections.unmodifiableList(Arrays.asList(rules));
+    }
+
+    // Number of evaluations in which the named rule fired
+    public long hits(String rule) {
+        for (int i = 0; i < rules.length; i++) {
+            if (rules[i].name().equals(rule)) {
+                return hits[i].sum();
+            }
+        }
+        return 0;
+    }
+
+    public static class AmountRule implements FraudRule {
+        private final double limit;
+
+        public AmountRule(double limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public String name() {
+            return EngineMetrics.RULE_AMOUNT;
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+
+        @Override
+        public boolean canChange(Evaluation evaluation) {
+            return !(evaluation.isFlagged() && evaluation.riskScoreFinal);
+        }
+
+        @Override
+        public boolean apply(Evaluation evaluation) {
+            if (evaluation.currentTransaction.amount > limit) {
+                evaluation.flag(50);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public static class BlacklistRule implements FraudRule {
+
+        @Override
+        public String name() {
+            return EngineMetrics.RULE_BLACKLIST;
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+
+        @Override
+        public boolean canChange(Evaluation evaluation) {
+            return !evaluation.riskScoreFinal;
+        }
+
+        @Override
+        public boolean apply(Evaluation evaluation) {
+            boolean blacklisted = evaluation.blacklist.test(evaluation.currentTransaction.location);
+            if (blacklisted) {
+                evaluation.blockWithFinalScore(100);
+            }
+            EngineMetrics.recordBlacklistHit(blacklisted);
+            return blacklisted;
+        }
+    }
+
+    // Only looks at the most recent previous transaction
+    public static class LocationHopRule implements FraudRule {
+        private final int minutes;
+
+        public LocationHopRule(int minutes) {
+            this.minutes = minutes;
+        }
+
+        @Override
+        public String name() {
+            return EngineMetrics.RULE_LOCATION;
+        }
+
+        @Override
+        public int cost() {
+            return 2;
+        }
+
+        @Override
+        public boolean canChange(Evaluation evaluation) {
+            return !(evaluation.isFlagged() && evaluation.riskScoreFinal);
+        }
+
+        @Override
+        public boolean apply(Evaluation evaluation) {
+            List<FraudDetectionSystem.Transaction> previousTransactions = evaluation.previousTransactions;
+            if (previousTransactions.isEmpty()) {
+                return false;
+            }
+            FraudDetectionSystem.Transaction lastTransaction = previousTransactions.get(previousTransactions.size() - 1);
+            FraudDetectionSystem.Transaction currentTransaction = evaluation.currentTransaction;
+            long minutesSinceLastTransaction = Duration.between(lastTransaction.timestamp, currentTransaction.timestamp).toMinutes();
+            if (minutesSinceLastTransaction < minutes && !lastTransaction.location.equals(currentTransaction.location)) {
+                evaluation.flag(20);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Scans the whole history, so it runs last
+    public static class VelocityRule implements FraudRule {
+        private final int windowMinutes;
+        private final int maxTransactions;
+
+        public VelocityRule(int windowMinutes, int maxTransactions) {
+            this.windowMinutes = windowMinutes;
+            this.maxTransactions = maxTransactions;
+        }
+
+        @Override
+        public String name() {
+            return EngineMetrics.RULE_VELOCITY;
+        }
+
+        @Override
+        public int cost() {
+            return 10;
+        }
+
+        @Override
+        public boolean canChange(Evaluation evaluation) {
+            return !evaluation.riskScoreFinal;
+        }
+
+        @Override
+        public boolean apply(Evaluation evaluation) {
+            int recentTransactionCount = 0;
+            for (FraudDetectionSystem.Transaction transaction : evaluation.previousTransactions) {
+                if (Duration.between(transaction.timestamp, evaluation.currentTransaction.timestamp).toMinutes() <= windowMinutes) {
+                    recentTransactionCount++;
+                }
+            }
+            EngineMetrics.recordWindowScanned(evaluation.previousTransactions.size());
+            if (recentTransactionCount > maxTransactions) {
+                evaluation.block(30);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package activity;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Energy-limit load shedding shared by the energy engines. Devices are shed in a deterministic order:
+// least important first (highest priority value), ties broken by device name. Candidates are kept in
+// an array-backed binary heap, so shedding k of n devices costs O(n + k log n).
+final class LoadShedder {
+
+    private LoadShedder() {
+    }
+
+    static int compare(String device, int priority, String otherDevice, int otherPriority) {
+        if (priority != otherPriority) {
+            return Integer.compare(otherPriority, priority);
+        }
+        return device.compareTo(otherDevice);
+    }
+
+    // Turns off low-priority devices (priority > 1) that are currently on, one energy unit each, until
+    // usage drops below the limit or no candidate is left. Returns the remaining usage; shed devices are
+    // added to shedDevices when it is not null.
+    static double shed(Map<String, Integer> devicePriorities, Map<String, Boolean> deviceStatus, double totalEnergyUsedToday,
+                       double energyUsageLimit, Collection<String> shedDevices) {
+        if (totalEnergyUsedToday < energyUsageLimit) {
+            return totalEnergyUsedToday;
+        }
+
+        String[] names = new String[devicePriorities.size()];
+        int[] priorities = new int[names.length];
+        int size = 0;
+        for (Map.Entry<String, Integer> entry : devicePriorities.entrySet()) {
+            if (entry.getValue() > 1 && deviceStatus.getOrDefault(entry.getKey(), false)) {
+                names[size] = entry.getKey();
+                priorities[size] = entry.getValue();
+                size++;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(names, priorities, i, size);
+        }
+
+        while (totalEnergyUsedToday >= energyUsageLimit && size > 0) {
+            String device = names[0];
+            deviceStatus.put(device, false);
+            totalEnergyUsedToday -= 1;  // Simulate energy reduction
+            if (shedDevices != null) {
+                shedDevices.add(device);
+            }
+            size--;
+            names[0] = names[size];
+            priorities[0] = priorities[size];
+            siftDown(names, priorities, 0, size);
+        }
+        return totalEnergyUsedToday;
+    }
+
+    private static void siftDown(String[] names, int[] priorities, int index, int size) {
+        String name = names[index];
+        int priority = priorities[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && compare(names[child + 1], priorities[child + 1], names[child], priorities[child]) < 0) {
+                child++;
+            }
+            if (compare(names[child], priorities[child], name, priority) >= 0) {
+                break;
+            }
+            names[index] = names[child];
+            priorities[index] = priorities[child];
+            index = child;
+        }
+        names[index] = name;
+        priorities[index] = priority;
+    }
+}
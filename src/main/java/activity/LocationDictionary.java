@@ -0,0 +1,56 @@
+package activity;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns location names into dense int IDs so that histories can be stored in primitive arrays.
+// Lookups of known names never lock; registering a new name takes the dictionary lock.
+public class LocationDictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private int size;
+
+    public int idOf(String location) {
+        Integer id = ids.get(location);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(location);
+            if (id == null) {
+                if (size == names.length) {
+                    names = Arrays.copyOf(names, size * 2);
+                }
+                id = size;
+                names[size++] = location;
+                ids.put(location, id);
+            }
+            return id;
+        }
+    }
+
+    // Returns -1 for names that were never interned, without registering them
+    public int find(String location) {
+        Integer id = ids.get(location);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Forgets every name registered after the dictionary held the given number of names; lets a
+    // writer undo the names of a write that failed
+    synchronized void truncate(int newSize) {
+        while (size > newSize) {
+            ids.remove(names[--size]);
+            names[size] = null;
+        }
+    }
+}
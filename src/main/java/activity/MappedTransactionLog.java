@@ -0,0 +1,267 @@
+package activity;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Persistent, append-only fraud history. Transactions are fixed-width 32-byte records in
+// memory-mapped segment files; every record links to the previous record of the same account, so
+// the recent window of an account is read straight from the mapped pages without copying the
+// history onto the heap. Account and location names are interned into IDs that are persisted in an
+// append-only dictionary file. On open, the dictionary is replayed and one sequential scan of the
+// segments rebuilds the per-account offset index.
+//
+// Record layout: epochMillis (long), amount (double), accountId + 1 (int, 0 marks free space),
+// locationId (int), index of the account's previous record (long, -1 if none).
+// Appends are serialized; reads may run concurrently with appends.
+public class MappedTransactionLog implements Closeable {
+
+    static final int RECORD_SIZE = 32;
+    private static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+
+    private static final byte ACCOUNT_ENTRY = 'A';
+    private static final byte LOCATION_ENTRY = 'L';
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final LocationDictionary accounts = new LocationDictionary();
+    private final LocationDictionary locations = new LocationDictionary();
+    private final DataOutputStream dictionaryOut;
+    private final List<FileChannel> channels = new ArrayList<>();
+
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile long[] lastRecordByAccount = new long[0];
+    private long size;
+
+    private MappedTransactionLog(Path directory, int recordsPerSegment) throws IOException {
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        Files.createDirectories(directory);
+        replayDictionary();
+        this.dictionaryOut = new DataOutputStream(Files.newOutputStream(dictionaryFile(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        recoverIndex();
+    }
+
+    public static MappedTransactionLog open(Path directory) throws IOException {
+        return new MappedTransactionLog(directory, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    static MappedTransactionLog open(Path directory, int recordsPerSegment) throws IOException {
+        return new MappedTransactionLog(directory, recordsPerSegment);
+    }
+
+    public synchronized void append(String accountId, FraudDetectionSystem.Transaction transaction) {
+        append(accountId, TransactionColumns.toEpochMillis(transaction.timestamp), transaction.amount, transaction.location);
+    }
+
+    // Timestamps of one account must not decrease, so that windows can be read newest-first
+    public synchronized void append(String accountId, long epochMillis, double amount, String location) {
+        int account = intern(accounts, ACCOUNT_ENTRY, accountId);
+        int locationId = intern(locations, LOCATION_ENTRY, location);
+
+        long previous = lastRecord(account);
+        if (previous >= 0 && epochMillis < epochMillis(previous)) {
+            throw new IllegalArgumentException("Transaction for account " + accountId + " is older than the previous one");
+        }
+
+        long index = size;
+        MappedByteBuffer segment = segmentFor(index);
+        int offset = offsetOf(index);
+        segment.putLong(offset, epochMillis);
+        segment.putDouble(offset + 8, amount);
+        segment.putInt(offset + 20, locationId);
+        segment.putLong(offset + 24, previous);
+        // Written last: a non-zero account marks the record as complete
+        segment.putInt(offset + 16, account + 1);
+
+        setLastRecord(account, index);
+        size = index + 1;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    // Index of the newest record of the account, or -1 if it has none
+    public long lastRecord(String accountId) {
+        int account = accounts.find(accountId);
+        return account < 0 ? -1 : lastRecord(account);
+    }
+
+    public long previousRecord(long index) {
+        return segments[(int) (index / recordsPerSegment)].getLong(offsetOf(index) + 24);
+    }
+
+    public long epochMillis(long index) {
+        return segments[(int) (index / recordsPerSegment)].getLong(offsetOf(index));
+    }
+
+    public double amount(long index) {
+        return segments[(int) (index / recordsPerSegment)].getDouble(offsetOf(index) + 8);
+    }
+
+    public int locationId(long index) {
+        return segments[(int) (index / recordsPerSegment)].getInt(offsetOf(index) + 20);
+    }
+
+    public LocationDictionary locations() {
+        return locations;
+    }
+
+    // Number of the account's transactions less than windowMillis before nowMillis, walking back from
+    // the newest record and stopping at the first one outside the window
+    int countWithin(String accountId, long nowMillis, long windowMillis) {
+        int count = 0;
+        for (long index = lastRecord(accountId); index >= 0; index = previousRecord(index)) {
+            if (nowMillis - epochMillis(index) >= windowMillis) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    public synchronized void force() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        dictionaryOut.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        dictionaryOut.close();
+        for (FileChannel channel : channels) {
+            channel.close();
+        }
+    }
+
+    private long lastRecord(int account) {
+        long[] lastRecords = lastRecordByAccount;
+        return account < lastRecords.length ? lastRecords[account] : -1;
+    }
+
+    private void setLastRecord(int account, long index) {
+        long[] lastRecords = lastRecordByAccount;
+        if (account >= lastRecords.length) {
+            int oldLength = lastRecords.length;
+            lastRecords = Arrays.copyOf(lastRecords, Math.max(16, Math.max(account + 1, oldLength * 2)));
+            Arrays.fill(lastRecords, oldLength, lastRecords.length, -1);
+        }
+        lastRecords[account] = index;
+        lastRecordByAccount = lastRecords;
+    }
+
+    private int intern(LocationDictionary dictionary, byte kind, String name) {
+        int id = dictionary.find(name);
+        if (id >= 0) {
+            return id;
+        }
+        id = dictionary.idOf(name);
+        try {
+            // Persisted before any record refers to the new ID
+            dictionaryOut.writeByte(kind);
+            dictionaryOut.writeUTF(name);
+            dictionaryOut.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return id;
+    }
+
+    private MappedByteBuffer segmentFor(long index) {
+        int segment = (int) (index / recordsPerSegment);
+        if (segment == segments.length) {
+            mapSegment(segment);
+        }
+        return segments[segment];
+    }
+
+    private void mapSegment(int segment) {
+        try {
+            FileChannel channel = FileChannel.open(segmentFile(segment),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channels.add(channel);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+            MappedByteBuffer[] grown = Arrays.copyOf(segments, segment + 1);
+            grown[segment] = buffer;
+            segments = grown;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int offsetOf(long index) {
+        return (int) (index % recordsPerSegment) * RECORD_SIZE;
+    }
+
+    private void replayDictionary() throws IOException {
+        if (!Files.exists(dictionaryFile())) {
+            return;
+        }
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dictionaryFile())))) {
+            while (true) {
+                byte kind;
+                byte[] entry;
+                try {
+                    kind = in.readByte();
+                    // The length prefix is kept so that readUTF can decode the entry
+                    int length = in.readUnsignedShort();
+                    entry = new byte[2 + length];
+                    entry[0] = (byte) (length >>> 8);
+                    entry[1] = (byte) length;
+                    in.readFully(entry, 2, length);
+                } catch (EOFException e) {
+                    // A torn trailing entry was never referenced by a record
+                    break;
+                }
+                String name = new DataInputStream(new ByteArrayInputStream(entry)).readUTF();
+                (kind == ACCOUNT_ENTRY ? accounts : locations).idOf(name);
+                valid += 1 + entry.length;
+            }
+        }
+        // Drop the torn entry, so the next one is appended after the last complete entry
+        try (FileChannel channel = FileChannel.open(dictionaryFile(), StandardOpenOption.WRITE)) {
+            channel.truncate(valid);
+        }
+    }
+
+    private void recoverIndex() {
+        for (int segment = 0; Files.exists(segmentFile(segment)); segment++) {
+            mapSegment(segment);
+            MappedByteBuffer buffer = segments[segment];
+            for (int record = 0; record < recordsPerSegment; record++) {
+                int account = buffer.getInt(record * RECORD_SIZE + 16) - 1;
+                if (account < 0) {
+                    return;
+                }
+                setLastRecord(account, size);
+                size++;
+            }
+        }
+    }
+
+    private Path dictionaryFile() {
+        return directory.resolve("dictionary.log");
+    }
+
+    private Path segmentFile(int segment) {
+        return directory.resolve(String.format("segment-%05d.log", segment));
+    }
+}
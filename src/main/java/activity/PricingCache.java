@@ -0,0 +1,173 @@
+package activity;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU cache of bookFlight fares (before reward points) keyed by flight, fare bucket, passenger
+// count, sales band and hours-to-departure band. The current price is rounded down to a multiple of
+// fareBucketWidth and previousSales to a multiple of salesBandWidth, and the fare is that of the
+// band's lower bound, so all requests in a band share one entry. A flight's entries are dropped as
+// soon as it is priced in a different sales band, so a stale demand factor is never served, and a
+// flight whose entries were all evicted is forgotten entirely. Thread-safe; lookups synchronize on
+// the cache, the counters do not.
+public class PricingCache {
+
+    static final double DEFAULT_FARE_BUCKET_WIDTH = 1.0;
+    static final int DEFAULT_SALES_BAND_WIDTH = 5;
+
+    private final int maxEntries;
+    private final double fareBucketWidth;
+    private final int salesBandWidth;
+    private final LinkedHashMap<Key, Double> fares;
+    private final Map<String, Set<Key>> keysByFlight = new HashMap<>();
+    private final Map<String, Integer> salesByFlight = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public PricingCache(int maxEntries) {
+        this(maxEntries, DEFAULT_FARE_BUCKET_WIDTH, DEFAULT_SALES_BAND_WIDTH);
+    }
+
+    public PricingCache(int maxEntries, double fareBucketWidth, int salesBandWidth) {
+        if (!(fareBucketWidth > 0) || salesBandWidth <= 0) {
+            throw new IllegalArgumentException("Band widths must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.fareBucketWidth = fareBucketWidth;
+        this.salesBandWidth = salesBandWidth;
+        this.fares = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+                if (size() <= PricingCache.this.maxEntries) {
+                    return false;
+                }
+                forget(eldest.getKey());
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    static final class Key {
+        final String flightId;
+        final double fareBucket;
+        final int passengers;
+        final int salesBand;
+        final boolean lastMinute;
+
+        Key(String flightId, double fareBucket, int passengers, int salesBand, boolean lastMinute) {
+            this.flightId = flightId;
+            this.fareBucket = fareBucket;
+            this.passengers = passengers;
+            this.salesBand = salesBand;
+            this.lastMinute = lastMinute;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Double.compare(key.fareBucket, fareBucket) == 0 && passengers == key.passengers
+                    && salesBand == key.salesBand && lastMinute == key.lastMinute && flightId.equals(key.flightId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(flightId, fareBucket, passengers, salesBand, lastMinute);
+        }
+    }
+
+    public synchronized double fare(String flightId, int passengers, double currentPrice, int previousSales, long hoursToDeparture) {
+        int salesBand = Math.floorDiv(previousSales, salesBandWidth) * salesBandWidth;
+        Integer knownBand = salesByFlight.put(flightId, salesBand);
+        if (knownBand != null && knownBand != salesBand) {
+            invalidate(flightId);
+            salesByFlight.put(flightId, salesBand);
+        }
+
+        // Only the < 24h last-minute fee depends on the time to departure
+        double fareBucket = Math.floor(currentPrice / fareBucketWidth) * fareBucketWidth;
+        Key key = new Key(flightId, fareBucket, passengers, salesBand, hoursToDeparture < 24);
+        Double fare = fares.get(key);
+        if (fare != null) {
+            hits.increment();
+            return fare;
+        }
+        misses.increment();
+        double computed = FlightBookingSystem.fare(passengers, fareBucket, salesBand, hoursToDeparture);
+        // Tracked before the put, whose eviction could otherwise forget the flight's sales band
+        keysByFlight.computeIfAbsent(flightId, id -> new HashSet<>()).add(key);
+        fares.put(key, computed);
+        return computed;
+    }
+
+    public synchronized void invalidate(String flightId) {
+        Set<Key> keys = keysByFlight.remove(flightId);
+        salesByFlight.remove(flightId);
+        if (keys != null) {
+            fares.keySet().removeAll(keys);
+            invalidations.add(keys.size());
+        }
+    }
+
+    public synchronized void clear() {
+        fares.clear();
+        keysByFlight.clear();
+        salesByFlight.clear();
+    }
+
+    public synchronized int size() {
+        return fares.size();
+    }
+
+    // Flights with cached fares; every one of them has at least one entry
+    synchronized int trackedFlights() {
+        return Math.max(keysByFlight.size(), salesByFlight.size());
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private void forget(Key key) {
+        Set<Key> keys = keysByFlight.get(key.flightId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByFlight.remove(key.flightId);
+                salesByFlight.remove(key.flightId);
+            }
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package activity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Reward-point balances per member. Balances are AtomicLongs in a ConcurrentHashMap and a debit is a
+// compare-and-set loop that never takes a balance below zero, so concurrent redemptions for
+// different members never contend and two redemptions can never spend the same points. An
+// operation with an idempotency key is applied at most once: a retry returns the first outcome,
+// and reusing the key for a different member, kind or amount is rejected. Only the most recent
+// retainedKeys keys are remembered; a retry older than that applies again. refund() credits back
+// a debit made under a key and frees the key, so the next debit with it applies again.
+//
+// A ledger opened on a file also appends every operation and its outcome to a journal, which is
+// replayed on open in fixed-size chunks; a torn trailing record from a crash is dropped. force()
+// makes the journal durable. compact() rewrites the journal as the remembered outcomes followed by
+// one balance record per member.
+//
+// Journal record: length (int), kind (byte, 'C', 'D', 'R' for a refund or 'B' for a compacted
+// balance), applied (byte), points (long), member and idempotency key (short length + UTF-8 bytes
+// each; an empty key means none).
+public class RewardPointsLedger implements Closeable {
+
+    private static final byte CREDIT = 'C';
+    private static final byte DEBIT = 'D';
+    private static final byte REFUND = 'R';
+    private static final byte BALANCE = 'B';
+
+    static final int DEFAULT_RETAINED_KEYS = 1 << 20;
+    // Holds the largest record: two 65535-byte strings plus the fixed fields
+    static final int REPLAY_CHUNK = 256 * 1024;
+
+    private final Map<String, AtomicLong> balances = new ConcurrentHashMap<>();
+    private final Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+    // Remembered outcomes, oldest first
+    private final Queue<Outcome> retained = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger retainedCount = new AtomicInteger();
+    private final int retainedKeys;
+    private final Path journalFile;
+    // Journal writes share the lock, compaction takes it exclusively; null without a journal
+    private final ReadWriteLock journalLock;
+    private FileChannel journal;
+
+    static class Outcome {
+        final String idempotencyKey;
+        final byte kind;
+        final String memberId;
+        final long points;
+        boolean done;
+        boolean applied;
+        boolean refunded;
+
+        Outcome(String idempotencyKey, byte kind, String memberId, long points) {
+            this.idempotencyKey = idempotencyKey;
+            this.kind = kind;
+            this.memberId = memberId;
+            this.points = points;
+        }
+
+        void requireSame(byte kind, String memberId, long points, String idempotencyKey) {
+            if (kind != this.kind || points != this.points || !memberId.equals(this.memberId)) {
+                throw new IllegalArgumentException("Idempotency key " + idempotencyKey + " was already used for another operation");
+            }
+        }
+    }
+
+    // In-memory ledger without a journal
+    public RewardPointsLedger() {
+        this(DEFAULT_RETAINED_KEYS);
+    }
+
+    public RewardPointsLedger(int retainedKeys) {
+        this.retainedKeys = requireRetainedKeys(retainedKeys);
+        this.journalFile = null;
+        this.journalLock = null;
+        this.journal = null;
+    }
+
+    private RewardPointsLedger(Path journalFile, int retainedKeys) throws IOException {
+        this.retainedKeys = requireRetainedKeys(retainedKeys);
+        this.journalFile = journalFile;
+        this.journalLock = new ReentrantReadWriteLock();
+        this.journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replay();
+    }
+
+    public static RewardPointsLedger open(Path journalFile) throws IOException {
+        return new RewardPointsLedger(journalFile, DEFAULT_RETAINED_KEYS);
+    }
+
+    public static RewardPointsLedger open(Path journalFile, int retainedKeys) throws IOException {
+        return new RewardPointsLedger(journalFile, retainedKeys);
+    }
+
+    private static int requireRetainedKeys(int retainedKeys) {
+        if (retainedKeys <= 0) {
+            throw new IllegalArgumentException("Retained keys must be positive: " + retainedKeys);
+        }
+        return retainedKeys;
+    }
+
+    public long balance(String memberId) {
+        AtomicLong balance = balances.get(memberId);
+        return balance == null ? 0 : balance.get();
+    }
+
+    public void credit(String memberId, long points) {
+        apply(CREDIT, memberId, points, "");
+    }
+
+    // Returns false, without changing the balance, if the member has fewer points
+    public boolean debit(String memberId, long points) {
+        return apply(DEBIT, memberId, points, "");
+    }
+
+    public void credit(String memberId, long points, String idempotencyKey) {
+        applyOnce(CREDIT, memberId, points, idempotencyKey);
+    }
+
+    public boolean debit(String memberId, long points, String idempotencyKey) {
+        return applyOnce(DEBIT, memberId, points, idempotencyKey);
+    }
+
+    // Credits back a debit made under idempotencyKey and frees the key. Returns false, and does
+    // nothing, if no debit under the key took points or if it was already refunded.
+    public boolean refund(String memberId, long points, String idempotencyKey) {
+        Outcome outcome = outcomes.get(idempotencyKey);
+        if (outcome == null) {
+            return false;
+        }
+        outcome.requireSame(DEBIT, memberId, points, idempotencyKey);
+        synchronized (outcome) {
+            if (!outcome.done || !outcome.applied || outcome.refunded) {
+                return false;
+            }
+            lockJournal();
+            try {
+                journal(REFUND, true, points, memberId, idempotencyKey);
+                add(memberId, points);
+                outcome.refunded = true;
+                outcomes.remove(idempotencyKey, outcome);
+            } finally {
+                unlockJournal();
+            }
+            return true;
+        }
+    }
+
+    public void force() throws IOException {
+        if (journalLock != null) {
+            lockJournal();
+            try {
+                journal.force(false);
+            } finally {
+                unlockJournal();
+            }
+        }
+    }
+
+    // Replaces the journal with the remembered outcomes and the current balances. The new journal is
+    // written beside the old one and moved over it, so a crash leaves one or the other intact.
+    public void compact() throws IOException {
+        if (journalLock == null) {
+            return;
+        }
+        Lock exclusive = journalLock.writeLock();
+        exclusive.lock();
+        try {
+            Path compacted = journalFile.resolveSibling(journalFile.getFileName() + ".compact");
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                // Outcomes first, in age order; the balance records that follow overwrite their effect
+                for (Outcome outcome : retained) {
+                    if (outcome.done && outcomes.get(outcome.idempotencyKey) == outcome) {
+                        write(out, record(outcome.kind, outcome.applied, outcome.points, outcome.memberId, outcome.idempotencyKey));
+                    }
+                }
+                for (Map.Entry<String, AtomicLong> balance : balances.entrySet()) {
+                    write(out, record(BALANCE, true, balance.getValue().get(), balance.getKey(), ""));
+                }
+                out.force(false);
+            }
+            journal.close();
+            Files.move(compacted, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            journal.position(journal.size());
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journalLock != null) {
+            Lock exclusive = journalLock.writeLock();
+            exclusive.lock();
+            try {
+                if (journal.isOpen()) {
+                    journal.force(false);
+                    journal.close();
+                }
+            } finally {
+                exclusive.unlock();
+            }
+        }
+    }
+
+    private boolean applyOnce(byte kind, String memberId, long points, String idempotencyKey) {
+        if (idempotencyKey.isEmpty()) {
+            throw new IllegalArgumentException("Idempotency keys must not be empty");
+        }
+        requirePositive(points);
+        while (true) {
+            Outcome created = new Outcome(idempotencyKey, kind, memberId, points);
+            Outcome outcome = outcomes.putIfAbsent(idempotencyKey, created);
+            if (outcome == null) {
+                outcome = created;
+                remember(created);
+            }
+            outcome.requireSame(kind, memberId, points, idempotencyKey);
+            // Applied outside the map, so only callers with the same key wait for each other
+            synchronized (outcome) {
+                if (outcome.refunded) {
+                    // Freed while we waited; apply under a fresh outcome
+                    continue;
+                }
+                if (!outcome.done) {
+                    // Recorded under the journal lock, so compaction never misses a journaled outcome
+                    lockJournal();
+                    try {
+                        outcome.applied = applyLocked(kind, memberId, points, idempotencyKey);
+                        outcome.done = true;
+                    } finally {
+                        unlockJournal();
+                    }
+                }
+                return outcome.applied;
+            }
+        }
+    }
+
+    // Forgets the oldest outcome once more than retainedKeys are remembered
+    private void remember(Outcome outcome) {
+        retained.add(outcome);
+        if (retainedCount.incrementAndGet() > retainedKeys) {
+            Outcome oldest = retained.poll();
+            if (oldest != null) {
+                retainedCount.decrementAndGet();
+                outcomes.remove(oldest.idempotencyKey, oldest);
+            }
+        }
+    }
+
+    private boolean apply(byte kind, String memberId, long points, String idempotencyKey) {
+        requirePositive(points);
+        lockJournal();
+        try {
+            return applyLocked(kind, memberId, points, idempotencyKey);
+        } finally {
+            unlockJournal();
+        }
+    }
+
+    private static void requirePositive(long points) {
+        if (points <= 0) {
+            throw new IllegalArgumentException("Points must be positive");
+        }
+    }
+
+    // Keeps compaction from running between a change in memory and its journal record
+    private void lockJournal() {
+        if (journalLock != null) {
+            journalLock.readLock().lock();
+        }
+    }
+
+    private void unlockJournal() {
+        if (journalLock != null) {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    private boolean applyLocked(byte kind, String memberId, long points, String idempotencyKey) {
+        if (kind == CREDIT) {
+            // Journaled before the points can be spent, so a replayed debit never precedes its credit
+            journal(CREDIT, true, points, memberId, idempotencyKey);
+            add(memberId, points);
+            return true;
+        }
+        boolean applied = debit(balances.get(memberId), points);
+        try {
+            journal(DEBIT, applied, points, memberId, idempotencyKey);
+        } catch (UncheckedIOException e) {
+            // Undo, so memory never holds a debit the journal lacks
+            if (applied) {
+                add(memberId, points);
+            }
+            throw e;
+        }
+        return applied;
+    }
+
+    private void add(String memberId, long points) {
+        balances.computeIfAbsent(memberId, id -> new AtomicLong()).addAndGet(points);
+    }
+
+    private static boolean debit(AtomicLong balance, long points) {
+        if (balance == null) {
+            return false;
+        }
+        while (true) {
+            long available = balance.get();
+            if (points > available) {
+                return false;
+            }
+            if (balance.compareAndSet(available, available - points)) {
+                return true;
+            }
+        }
+    }
+
+    private void journal(byte kind, boolean applied, long points, String memberId, String idempotencyKey) {
+        if (journal == null) {
+            return;
+        }
+        ByteBuffer record = record(kind, applied, points, memberId, idempotencyKey);
+        try {
+            synchronized (journalLock) {
+                write(journal, record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer record(byte kind, boolean applied, long points, String memberId, String idempotencyKey) {
+        byte[] member = memberId.getBytes(StandardCharsets.UTF_8);
+        byte[] key = idempotencyKey.getBytes(StandardCharsets.UTF_8);
+        if (member.length > 0xFFFF || key.length > 0xFFFF) {
+            throw new IllegalArgumentException("Member IDs and idempotency keys are limited to 65535 bytes");
+        }
+        ByteBuffer record = ByteBuffer.allocate(4 + 2 + 8 + 2 + member.length + 2 + key.length);
+        record.putInt(record.capacity() - 4);
+        record.put(kind);
+        record.put((byte) (applied ? 1 : 0));
+        record.putLong(points);
+        record.putShort((short) member.length).put(member);
+        record.putShort((short) key.length).put(key);
+        return record.flip();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer record) throws IOException {
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    private void replay() throws IOException {
+        ByteBuffer in = ByteBuffer.allocate(REPLAY_CHUNK);
+        long valid = 0;
+        boolean end = false;
+        while (!end) {
+            // Refill behind the unread tail of the previous chunk
+            while (in.hasRemaining() && !end) {
+                end = journal.read(in) < 0;
+            }
+            in.flip();
+            while (in.remaining() >= 4) {
+                int length = in.getInt(in.position());
+                if (length < 14 || length > REPLAY_CHUNK - 4) {
+                    // Garbage, not a record
+                    end = true;
+                    break;
+                }
+                if (length > in.remaining() - 4) {
+                    break;
+                }
+                in.getInt();
+                replay(in.get(), in.get() != 0, in.getLong(), readString(in), readString(in));
+                valid += 4 + length;
+            }
+            in.compact();
+        }
+        // Drop a torn trailing record and append after the last complete one
+        journal.truncate(valid);
+        journal.position(valid);
+    }
+
+    private void replay(byte kind, boolean applied, long points, String memberId, String idempotencyKey) {
+        if (kind == BALANCE) {
+            balances.computeIfAbsent(memberId, id -> new AtomicLong()).set(points);
+        } else if (kind == REFUND) {
+            add(memberId, points);
+            outcomes.remove(idempotencyKey);
+        } else {
+            if (applied) {
+                add(memberId, kind == CREDIT ? points : -points);
+            }
+            if (!idempotencyKey.isEmpty()) {
+                Outcome outcome = new Outcome(idempotencyKey, kind, memberId, points);
+                outcome.done = true;
+                outcome.applied = applied;
+                outcomes.put(idempotencyKey, outcome);
+                remember(outcome);
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Time-ordered index of device schedules. Insert is O(log n), cancel is O(1) (cancelled entries are
+// skipped lazily and purged once they make up half of the heap) and a tick only touches the
+// schedules that are actually due. Not thread-safe.
+public class ScheduleQueue {
+
+    private static final Comparator<Entry> BY_TIME = Comparator.<Entry, LocalDateTime>comparing(entry -> entry.schedule.scheduledTime)
+            .thenComparingLong(entry -> entry.sequence);
+
+    private PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private long nextSequence;
+    private int cancelled;
+
+    // Ordered by BY_TIME as natural ordering, so that PriorityQueue's collection constructor can heapify
+    public static class Entry implements Comparable<Entry> {
+        final SmartEnergyManagementSystem.DeviceSchedule schedule;
+        final long sequence;
+        boolean cancelled;
+        boolean removed;
+
+        Entry(SmartEnergyManagementSystem.DeviceSchedule schedule, long sequence) {
+            this.schedule = schedule;
+            this.sequence = sequence;
+        }
+
+        public SmartEnergyManagementSystem.DeviceSchedule schedule() {
+            return schedule;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return BY_TIME.compare(this, other);
+        }
+    }
+
+    public ScheduleQueue() {
+    }
+
+    public ScheduleQueue(List<SmartEnergyManagementSystem.DeviceSchedule> schedules) {
+        List<Entry> entries = new ArrayList<>(schedules.size());
+        for (SmartEnergyManagementSystem.DeviceSchedule schedule : schedules) {
+            entries.add(new Entry(schedule, nextSequence++));
+        }
+        // The collection constructor heapifies in O(n) instead of n separate O(log n) inserts
+        queue = new PriorityQueue<>(entries);
+    }
+
+    public Entry add(SmartEnergyManagementSystem.DeviceSchedule schedule) {
+        Entry entry = new Entry(schedule, nextSequence++);
+        queue.add(entry);
+        return entry;
+    }
+
+    // Returns false if the entry already fired or was cancelled before
+    public boolean cancel(Entry entry) {
+        if (entry.cancelled || entry.removed) {
+            return false;
+        }
+        entry.cancelled = true;
+        cancelled++;
+        if (cancelled > queue.size() / 2) {
+            purgeCancelled();
+        }
+        return true;
+    }
+
+    // Removes and returns the schedules due in [from, to] in time order. Schedules that fell due
+    // before 'from' were missed by the caller's ticks and are discarded.
+    public List<SmartEnergyManagementSystem.DeviceSchedule> pollDue(LocalDateTime from, LocalDateTime to) {
+        List<SmartEnergyManagementSystem.DeviceSchedule> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.peek().schedule.scheduledTime.isAfter(to)) {
+            Entry entry = queue.poll();
+            entry.removed = true;
+            if (entry.cancelled) {
+                cancelled--;
+            } else if (!entry.schedule.scheduledTime.isBefore(from)) {
+                due.add(entry.schedule);
+            }
+        }
+        return due;
+    }
+
+    public LocalDateTime nextDueTime() {
+        while (!queue.isEmpty() && queue.peek().cancelled) {
+            queue.poll().removed = true;
+            cancelled--;
+        }
+        return queue.isEmpty() ? null : queue.peek().schedule.scheduledTime;
+    }
+
+    public int size() {
+        return queue.size() - cancelled;
+    }
+
+    private void purgeCancelled() {
+        queue.removeIf(entry -> {
+            if (entry.cancelled) {
+                entry.removed = true;
+                return true;
+            }
+            return false;
+        });
+        cancelled = 0;
+    }
+}
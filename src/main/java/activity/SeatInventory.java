@@ -0,0 +1,87 @@
+package activity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+// Per-flight seat counters shared by concurrent bookings. Reservations and releases are lock-free
+// compare-and-set loops on the flight's counter, so a flight can never be oversold and bookings for
+// different flights never contend.
+public class SeatInventory {
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    static class Flight {
+        final int capacity;
+        final AtomicInteger availableSeats;
+
+        Flight(int capacity) {
+            this.capacity = capacity;
+            this.availableSeats = new AtomicInteger(capacity);
+        }
+    }
+
+    public void addFlight(String flightId, int capacity) {
+        if (flights.putIfAbsent(flightId, new Flight(capacity)) != null) {
+            throw new IllegalArgumentException("Flight " + flightId + " already exists");
+        }
+    }
+
+    public boolean reserve(String flightId, int seats) {
+        requirePositive(seats);
+        AtomicInteger availableSeats = flight(flightId).availableSeats;
+        while (true) {
+            int available = availableSeats.get();
+            if (seats > available) {
+                return false;
+            }
+            if (availableSeats.compareAndSet(available, available - seats)) {
+                return true;
+            }
+        }
+    }
+
+    // Returns seats to the flight; never raises availability above the flight's capacity
+    public void release(String flightId, int seats) {
+        requirePositive(seats);
+        Flight flight = flight(flightId);
+        flight.availableSeats.accumulateAndGet(seats, (available, released) -> Math.min(flight.capacity, available + released));
+    }
+
+    // Applies a whole batch of seat changes to the flight in one compare-and-set. The plan maps the
+    // seats available before the batch to the seats available after it; it is run again whenever a
+    // concurrent booking changed the counter first, so it must rewrite any state it records per run.
+    int commit(String flightId, IntUnaryOperator plan) {
+        AtomicInteger availableSeats = flight(flightId).availableSeats;
+        while (true) {
+            int available = availableSeats.get();
+            if (availableSeats.compareAndSet(available, plan.applyAsInt(available))) {
+                return available;
+            }
+        }
+    }
+
+    public int availableSeats(String flightId) {
+        return flight(flightId).availableSeats.get();
+    }
+
+    public int capacity(String flightId) {
+        return flight(flightId).capacity;
+    }
+
+    Flight flight(String flightId) {
+        Flight flight = flights.get(flightId);
+        if (flight == null) {
+            throw new IllegalArgumentException("Unknown flight " + flightId);
+        }
+        return flight;
+    }
+
+    // A negative count would move seats the other way, past the capacity checks
+    static void requirePositive(int seats) {
+        if (seats <= 0) {
+            throw new IllegalArgumentException("Seat count must be positive: " + seats);
+        }
+    }
+}
@@ -10,11 +10,26 @@ public class SmartEnergyManagementSystem {
     public static class DeviceSchedule {
         String deviceName;
         LocalDateTime scheduledTime;
+        // Set when the schedule is built against a registry: that registry and the device's ID in it
+        DeviceRegistry registry;
+        int deviceId = -1;
 
         public DeviceSchedule(String deviceName, LocalDateTime scheduledTime) {
             this.deviceName = deviceName;
             this.scheduledTime = scheduledTime;
         }
+
+        // Resolves the device now, registering it if it is new, so that ticks over the registry only read it
+        public DeviceSchedule(DeviceRegistry registry, String deviceName, LocalDateTime scheduledTime) {
+            this(deviceName, scheduledTime);
+            this.registry = registry;
+            this.deviceId = registry.idOf(deviceName);
+        }
+
+        // ID of the device in the given registry, or -1 if it is not registered there
+        int deviceId(DeviceRegistry registry) {
+            return registry == this.registry ? deviceId : registry.find(deviceName);
+        }
     }
 
     public static class EnergyManagementResult {
@@ -29,13 +44,32 @@ public class SmartEnergyManagementSystem {
             this.temperatureRegulationActive = temperatureRegulationActive;
             this.totalEnergyUsed = totalEnergyUsed;
         }
+
+        // Empty holder for the allocation-free manageEnergy overload; its map is reused on every call
+        public EnergyManagementResult() {
+            this(new HashMap<>(), false, false, 0);
+        }
     }
 
     public EnergyManagementResult manageEnergy(double currentPrice, double priceThreshold, Map<String, Integer> devicePriorities,
                                                LocalDateTime currentTime, double currentTemperature, double[] desiredTemperatureRange,
                                                double energyUsageLimit, double totalEnergyUsedToday, List<DeviceSchedule> scheduledDevices) {
+        return manageEnergy(currentPrice, priceThreshold, devicePriorities, currentTime, currentTemperature, desiredTemperatureRange,
+                energyUsageLimit, totalEnergyUsedToday, scheduledDevices, new EnergyManagementResult());
+    }
+
+    // Writes the outcome into a caller-owned holder. Its deviceStatus map is updated in place: entries of
+    // known devices are overwritten and entries that would not be reported this time are removed, so a
+    // stable device set causes no map allocation from tick to tick.
+    public EnergyManagementResult manageEnergy(double currentPrice, double priceThreshold, Map<String, Integer> devicePriorities,
+                                               LocalDateTime currentTime, double currentTemperature, double[] desiredTemperatureRange,
+                                               double energyUsageLimit, double totalEnergyUsedToday, List<DeviceSchedule> scheduledDevices,
+                                               EnergyManagementResult result) {
 
-        Map<String, Boolean> deviceStatus = new HashMap<>();
+        long start = EngineMetrics.start();
+        Map<String, Boolean> deviceStatus = result.deviceStatus;
+        deviceStatus.keySet().removeIf(device -> !devicePriorities.containsKey(device)
+                && !device.equals("Heating") && !device.equals("Cooling"));
         boolean energySavingMode = false;
         boolean temperatureRegulationActive;
 
@@ -82,20 +116,10 @@ public class SmartEnergyManagementSystem {
         }
 
 
-        // Shut down devices as energy limit is approached
-        boolean reductionOccurred = true;
-        while (totalEnergyUsedToday >= energyUsageLimit && reductionOccurred) {
-            reductionOccurred = false;
-            for (Map.Entry<String, Integer> entry : devicePriorities.entrySet()) {
-                String deviceName = entry.getKey();
-                if (deviceStatus.getOrDefault(deviceName, false) && entry.getValue() > 1) {
-                    deviceStatus.put(deviceName, false);
-                    totalEnergyUsedToday -= 1;  // Simulate energy reduction
-                    reductionOccurred = true;
-                    break;  // Break to re-evaluate the while condition with updated energy usage
-                }
-            }
-        }
+        // Shut down devices as energy limit is approached, least important first
+        double energyBeforeShedding = totalEnergyUsedToday;
+        totalEnergyUsedToday = LoadShedder.shed(devicePriorities, deviceStatus, totalEnergyUsedToday, energyUsageLimit, null);
+        EngineMetrics.recordDevicesShed(Math.round(energyBeforeShedding - totalEnergyUsedToday));
 
         // Handle scheduled devices
         for (DeviceSchedule schedule : scheduledDevices) {
@@ -104,7 +128,87 @@ public class SmartEnergyManagementSystem {
             }
         }
 
-        return new EnergyManagementResult(deviceStatus, energySavingMode, temperatureRegulationActive, totalEnergyUsedToday);
+        result.energySavingMode = energySavingMode;
+        result.temperatureRegulationActive = temperatureRegulationActive;
+        result.totalEnergyUsed = totalEnergyUsedToday;
+        EngineMetrics.recordDecision(EngineMetrics.MANAGE_ENERGY, start);
+        return result;
     }
 
+    // manageEnergy over interned devices: the rules run word by word on the registry's bitsets and
+    // shedding walks its precomputed order. The statuses are written into status, and the result's
+    // deviceStatus becomes the live map view of it. The tick never registers devices: scheduled
+    // devices must already be in the registry, which DeviceSchedule(registry, ...) ensures.
+    public EnergyManagementResult manageEnergy(double currentPrice, double priceThreshold, DeviceRegistry registry,
+                                               LocalDateTime currentTime, double currentTemperature, double[] desiredTemperatureRange,
+                                               double energyUsageLimit, double totalEnergyUsedToday, List<DeviceSchedule> scheduledDevices,
+                                               DeviceStatus status, EnergyManagementResult result) {
+        long start = EngineMetrics.start();
+        status.ensureCapacity();
+        long[] prioritized = registry.prioritized();
+        long[] lowPriority = registry.lowPriority();
+        long[] nightExempt = registry.nightExempt();
+        long[] reported = status.reported;
+        long[] on = status.on;
+
+        // Energy-saving mode turns off low-priority devices; night mode everything but Security and Refrigerator
+        boolean energySavingMode = currentPrice > priceThreshold;
+        boolean nightMode = currentTime.getHour() == 23 || currentTime.getHour() < 6;
+        for (int word = 0; word < reported.length; word++) {
+            long devices = word < prioritized.length ? prioritized[word] : 0;
+            long deviceOn = devices;
+            if (energySavingMode) {
+                deviceOn &= ~lowPriority[word];
+            }
+            if (nightMode) {
+                deviceOn &= nightExempt[word];
+            }
+            reported[word] = devices;
+            on[word] = deviceOn;
+        }
+
+        // Temperature regulation
+        boolean temperatureRegulationActive = true;
+        if (currentTemperature < desiredTemperatureRange[0]) {
+            status.set(DeviceRegistry.HEATING, true);
+            status.set(DeviceRegistry.COOLING, false);
+        } else if (currentTemperature > desiredTemperatureRange[1]) {
+            status.set(DeviceRegistry.HEATING, false);
+            status.set(DeviceRegistry.COOLING, true);
+        } else {
+            status.set(DeviceRegistry.HEATING, false);
+            status.set(DeviceRegistry.COOLING, false);
+            temperatureRegulationActive = false;
+        }
+
+        // Shut down devices as energy limit is approached, least important first
+        double energyBeforeShedding = totalEnergyUsedToday;
+        int[] sheddingOrder = registry.sheddingOrder();
+        for (int i = 0; i < sheddingOrder.length && totalEnergyUsedToday >= energyUsageLimit; i++) {
+            int device = sheddingOrder[i];
+            if (status.isOn(device)) {
+                status.set(device, false);
+                totalEnergyUsedToday -= 1;  // Simulate energy reduction
+            }
+        }
+        EngineMetrics.recordDevicesShed(Math.round(energyBeforeShedding - totalEnergyUsedToday));
+
+        // Handle scheduled devices
+        for (DeviceSchedule schedule : scheduledDevices) {
+            if (schedule.scheduledTime.equals(currentTime)) {
+                int device = schedule.deviceId(registry);
+                if (device < 0) {
+                    throw new IllegalArgumentException("Scheduled device " + schedule.deviceName + " is not in the registry");
+                }
+                status.set(device, true);
+            }
+        }
+
+        result.deviceStatus = status.asMap();
+        result.energySavingMode = energySavingMode;
+        result.temperatureRegulationActive = temperatureRegulationActive;
+        result.totalEnergyUsed = totalEnergyUsedToday;
+        EngineMetrics.recordDecision(EngineMetrics.MANAGE_ENERGY, start);
+        return result;
+    }
 }
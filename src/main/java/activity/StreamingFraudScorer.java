@@ -0,0 +1,132 @@
+package activity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Stateful alternative to FraudDetectionSystem.checkForFraud for event streams: every account keeps
+// only the timestamps of its last hour in a ring buffer, so each event costs O(1) amortized instead
+// of a rescan of the full history. Events of one account must arrive in timestamp order.
+// Idle accounts are dropped: the scorer's clock is the newest timestamp it has scored, and an account
+// whose newest event is more than idleMinutes behind it (by default the longest rule window, one
+// hour) no longer affects any decision, so memory stays proportional to the recently active
+// accounts. Events of different accounts may therefore lag each other by at most idleMinutes.
+// Not thread-safe; use one scorer per thread or partition accounts between scorers.
+public class StreamingFraudScorer {
+
+    private static final int INITIAL_CAPACITY = 16;
+    // The velocity window; the location hop only looks back 30 minutes
+    static final int LONGEST_WINDOW_MINUTES = 60;
+
+    private final FraudDetectionSystem fraudSystem;
+    private final int idleMinutes;
+    // Access ordered, so the least recently scored accounts come first
+    private final Map<String, AccountWindow> windows = new LinkedHashMap<>(16, 0.75f, true);
+    private LocalDateTime newest;
+
+    public StreamingFraudScorer() {
+        this(new FraudDetectionSystem());
+    }
+
+    public StreamingFraudScorer(FraudDetectionSystem fraudSystem) {
+        this(fraudSystem, LONGEST_WINDOW_MINUTES);
+    }
+
+    public StreamingFraudScorer(FraudDetectionSystem fraudSystem, int idleMinutes) {
+        if (!fraudSystem.usesStandardRules()) {
+            throw new IllegalArgumentException("Streaming scoring supports only the standard rules");
+        }
+        if (idleMinutes < LONGEST_WINDOW_MINUTES) {
+            throw new IllegalArgumentException("Idle accounts must be kept for at least " + LONGEST_WINDOW_MINUTES + " minutes");
+        }
+        this.fraudSystem = fraudSystem;
+        this.idleMinutes = idleMinutes;
+    }
+
+    static class AccountWindow {
+        LocalDateTime[] timestamps = new LocalDateTime[INITIAL_CAPACITY];
+        int head;
+        int size;
+        FraudDetectionSystem.Transaction lastTransaction;
+
+        // Drops entries that checkForFraud would no longer count as "in the last hour"
+        void evictOlderThanOneHour(LocalDateTime now) {
+            while (size > 0 && Duration.between(timestamps[head], now).toMinutes() > 60) {
+                timestamps[head] = null;
+                head = (head + 1) % timestamps.length;
+                size--;
+            }
+        }
+
+        void append(FraudDetectionSystem.Transaction transaction) {
+            if (size == timestamps.length) {
+                LocalDateTime[] grown = new LocalDateTime[timestamps.length * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = timestamps[(head + i) % timestamps.length];
+                }
+                timestamps = grown;
+                head = 0;
+            }
+            timestamps[(head + size) % timestamps.length] = transaction.timestamp;
+            size++;
+            lastTransaction = transaction;
+        }
+    }
+
+    public FraudDetectionSystem.FraudCheckResult score(String accountId, FraudDetectionSystem.Transaction transaction,
+                                                      List<String> blacklistedLocations) {
+        return score(accountId, transaction, blacklistedLocations.contains(transaction.location));
+    }
+
+    public FraudDetectionSystem.FraudCheckResult score(String accountId, FraudDetectionSystem.Transaction transaction,
+                                                      BlacklistIndex blacklist) {
+        return score(accountId, transaction, blacklist.contains(transaction.location));
+    }
+
+    private FraudDetectionSystem.FraudCheckResult score(String accountId, FraudDetectionSystem.Transaction transaction,
+                                                       boolean blacklisted) {
+        AccountWindow window = windows.computeIfAbsent(accountId, id -> new AccountWindow());
+        FraudDetectionSystem.Transaction last = window.lastTransaction;
+        if (last != null && transaction.timestamp.isBefore(last.timestamp)) {
+            throw new IllegalArgumentException("Transaction for account " + accountId + " is older than the previous one");
+        }
+
+        window.evictOlderThanOneHour(transaction.timestamp);
+        FraudDetectionSystem.FraudCheckResult result = fraudSystem.evaluate(transaction, window.size, last, blacklisted);
+        window.append(transaction);
+        if (newest == null || transaction.timestamp.isAfter(newest)) {
+            newest = transaction.timestamp;
+            evictIdleAccounts();
+        }
+        return result;
+    }
+
+    // Walks from the least recently scored account and stops at the first one still active, so
+    // each account is visited once after it goes idle
+    private void evictIdleAccounts() {
+        Iterator<AccountWindow> iterator = windows.values().iterator();
+        while (iterator.hasNext()) {
+            AccountWindow window = iterator.next();
+            if (Duration.between(window.lastTransaction.timestamp, newest).toMinutes() <= idleMinutes) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    public int accountCount() {
+        return windows.size();
+    }
+
+    public int windowSize(String accountId) {
+        AccountWindow window = windows.get(accountId);
+        return window == null ? 0 : window.size;
+    }
+
+    public void reset(String accountId) {
+        windows.remove(accountId);
+    }
+}
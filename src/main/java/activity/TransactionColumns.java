@@ -0,0 +1,99 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+// Columnar transaction history: timestamps as epoch millis, amounts and interned location IDs are
+// kept in parallel primitive arrays, so scanning a window touches no objects and allocates nothing.
+// Timestamps are truncated to millisecond precision. Not thread-safe.
+public class TransactionColumns {
+
+    // Duration.toMinutes() <= 60 holds for every gap shorter than 61 whole minutes
+    static final long ONE_HOUR_WINDOW_MILLIS = 61 * 60_000L;
+    // Duration.toMinutes() < 30 holds for every gap shorter than 30 whole minutes
+    static final long LOCATION_CHANGE_WINDOW_MILLIS = 30 * 60_000L;
+
+    private final LocationDictionary locations;
+    private long[] epochMillis;
+    private double[] amounts;
+    private int[] locationIds;
+    private int size;
+
+    public TransactionColumns(LocationDictionary locations) {
+        this(locations, 16);
+    }
+
+    public TransactionColumns(LocationDictionary locations, int initialCapacity) {
+        this.locations = locations;
+        int capacity = Math.max(1, initialCapacity);
+        this.epochMillis = new long[capacity];
+        this.amounts = new double[capacity];
+        this.locationIds = new int[capacity];
+    }
+
+    public static TransactionColumns of(List<FraudDetectionSystem.Transaction> transactions, LocationDictionary locations) {
+        TransactionColumns columns = new TransactionColumns(locations, transactions.size());
+        for (FraudDetectionSystem.Transaction transaction : transactions) {
+            columns.add(transaction);
+        }
+        return columns;
+    }
+
+    public static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public void add(FraudDetectionSystem.Transaction transaction) {
+        add(transaction.amount, toEpochMillis(transaction.timestamp), locations.idOf(transaction.location));
+    }
+
+    public void add(double amount, long timestampMillis, int locationId) {
+        if (size == epochMillis.length) {
+            int capacity = size * 2;
+            epochMillis = Arrays.copyOf(epochMillis, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            locationIds = Arrays.copyOf(locationIds, capacity);
+        }
+        epochMillis[size] = timestampMillis;
+        amounts[size] = amount;
+        locationIds[size] = locationId;
+        size++;
+    }
+
+    // Number of stored transactions less than windowMillis before the given instant (later ones included)
+    int countWithin(long nowMillis, long windowMillis) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (nowMillis - epochMillis[i] < windowMillis) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long epochMillis(int index) {
+        return epochMillis[index];
+    }
+
+    public double amount(int index) {
+        return amounts[index];
+    }
+
+    public int locationId(int index) {
+        return locationIds[index];
+    }
+
+    public LocationDictionary locations() {
+        return locations;
+    }
+}
@@ -0,0 +1,133 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AccountStateStoreTest {
+
+    @Test
+    void testTrimmedWindowsMatchFullHistory() {
+        Random random = new Random(17);
+        String[] accounts = {"acc-1", "acc-2", "acc-3", "acc-4"};
+        String[] names = {"New York", "Los Angeles", "Fraud Town"};
+        List<String> blacklistedLocations = Arrays.asList("Fraud Town");
+        BlacklistIndex blacklist = BlacklistIndex.of(blacklistedLocations);
+        FraudDetectionSystem fraudSystem = new FraudDetectionSystem();
+        AccountStateStore store = new AccountStateStore(TimeUnit.DAYS.toMillis(1), 100);
+        Map<String, List<FraudDetectionSystem.Transaction>> histories = new HashMap<>();
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        for (int i = 0; i < 5000; i++) {
+            time = time.plusSeconds(random.nextInt(240));
+            String accountId = accounts[random.nextInt(accounts.length)];
+            FraudDetectionSystem.Transaction transaction = new FraudDetectionSystem.Transaction(
+                    random.nextInt(12000), time, names[random.nextInt(names.length)]);
+            List<FraudDetectionSystem.Transaction> history = histories.computeIfAbsent(accountId, k -> new ArrayList<>());
+
+            FraudDetectionSystem.FraudCheckResult expected = fraudSystem.checkForFraud(transaction, history, blacklistedLocations);
+            FraudDetectionSystem.FraudCheckResult actual = store.checkAndRecord(accountId, transaction, blacklist);
+
+            Assertions.assertEquals(expected.isFraudulent, actual.isFraudulent);
+            Assertions.assertEquals(expected.isBlocked, actual.isBlocked);
+            Assertions.assertEquals(expected.verificationRequired, actual.verificationRequired);
+            Assertions.assertEquals(expected.riskScore, actual.riskScore);
+            Assertions.assertTrue(store.window(accountId).size() <= AccountStateStore.DEFAULT_WINDOW_CAPACITY);
+            history.add(transaction);
+        }
+    }
+
+    @Test
+    void testWindowDropsTransactionsOlderThanAnHour() {
+        AccountStateStore store = new AccountStateStore(TimeUnit.DAYS.toMillis(1), 100);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        store.record("acc-1", new FraudDetectionSystem.Transaction(100, now.minusMinutes(90), "New York"));
+        store.record("acc-1", new FraudDetectionSystem.Transaction(100, now.minusMinutes(30), "New York"));
+        store.record("acc-1", new FraudDetectionSystem.Transaction(100, now, "New York"));
+
+        List<FraudDetectionSystem.Transaction> window = store.window("acc-1");
+        Assertions.assertEquals(2, window.size());
+        Assertions.assertEquals(now, window.get(1).timestamp);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> window.add(null));
+        Assertions.assertTrue(store.window("unknown").isEmpty());
+    }
+
+    @Test
+    void testIdleAccountsExpire() {
+        AtomicLong clock = new AtomicLong();
+        AccountStateStore store = new AccountStateStore(new FraudDetectionSystem(), 60, 11, 1000, 100, 4, clock::get);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        store.record("acc-1", new FraudDetectionSystem.Transaction(100, now, "New York"));
+        clock.set(800);
+        store.record("acc-2", new FraudDetectionSystem.Transaction(100, now, "New York"));
+        clock.set(1500);
+
+        Assertions.assertEquals(1, store.evictIdle());
+        Assertions.assertTrue(store.window("acc-1").isEmpty());
+        Assertions.assertEquals(1, store.window("acc-2").size());
+        Assertions.assertEquals(1, store.evictions());
+    }
+
+    @Test
+    void testAccountLimitEvictsLeastRecentlyActive() {
+        AtomicLong clock = new AtomicLong();
+        AccountStateStore store = new AccountStateStore(new FraudDetectionSystem(), 60, 11, TimeUnit.DAYS.toMillis(1), 80, 4, clock::get);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        for (int i = 0; i < 1000; i++) {
+            clock.incrementAndGet();
+            store.record("acc-" + i, new FraudDetectionSystem.Transaction(100, now, "New York"));
+            Assertions.assertTrue(store.size() <= 80);
+        }
+        Assertions.assertEquals(1, store.window("acc-999").size());
+        Assertions.assertTrue(store.window("acc-0").isEmpty());
+    }
+
+    @Test
+    void testConcurrentAccountsAreScoredIndependently() throws Exception {
+        AccountStateStore store = new AccountStateStore(TimeUnit.DAYS.toMillis(1), 10_000);
+        BlacklistIndex blacklist = BlacklistIndex.empty();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> blocked = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread;
+                blocked.add(executor.submit(() -> {
+                    int count = 0;
+                    for (int i = 0; i < 20; i++) {
+                        for (int account = offset; account < 200; account += 4) {
+                            FraudDetectionSystem.Transaction transaction = new FraudDetectionSystem.Transaction(100,
+                                    start.plusMinutes(i), "New York");
+                            if (store.checkAndRecord("acc-" + account, transaction, blacklist).isBlocked) {
+                                count++;
+                            }
+                        }
+                    }
+                    return count;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> future : blocked) {
+                total += future.get();
+            }
+            // Every account blocks its 12th through 20th transaction
+            Assertions.assertEquals(200 * 9, total);
+            Assertions.assertEquals(200, store.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class BatchBookingPipelineTest {
+    private static final LocalDateTime BOOKING_TIME = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private BatchBookingPipeline pipeline;
+    private FlightBookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new BatchBookingPipeline(new BulkFlightPricer(), new ForkJoinPool(4));
+        bookingSystem = new FlightBookingSystem();
+    }
+
+    @Test
+    void testResultsMatchSequentialBookingsInInputOrder() {
+        Random random = new Random(24);
+        SeatInventory batchInventory = new SeatInventory();
+        SeatInventory sequentialInventory = new SeatInventory();
+        for (int flight = 0; flight < 20; flight++) {
+            int capacity = 10 + random.nextInt(200);
+            batchInventory.addFlight("F" + flight, capacity);
+            sequentialInventory.addFlight("F" + flight, capacity);
+        }
+
+        List<BatchBookingPipeline.BookingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            requests.add(new BatchBookingPipeline.BookingRequest("F" + random.nextInt(20), 1 + random.nextInt(8), BOOKING_TIME,
+                    50 + random.nextInt(500), random.nextInt(200), random.nextInt(4) == 0,
+                    BOOKING_TIME.plusHours(random.nextInt(96)), random.nextInt(3) == 0 ? random.nextInt(5000) : 0));
+        }
+
+        List<FlightBookingSystem.BookingResult> results = pipeline.bookAll(batchInventory, requests);
+
+        Assertions.assertEquals(requests.size(), results.size());
+        for (int i = 0; i < requests.size(); i++) {
+            BatchBookingPipeline.BookingRequest request = requests.get(i);
+            FlightBookingSystem.BookingResult expected = bookingSystem.bookFlight(sequentialInventory, request.flightId,
+                    request.passengers, request.bookingTime, request.currentPrice, request.previousSales, request.isCancellation,
+                    request.departureTime, request.rewardPointsAvailable);
+            FlightBookingSystem.BookingResult actual = results.get(i);
+            Assertions.assertEquals(expected.confirmation, actual.confirmation);
+            Assertions.assertEquals(expected.totalPrice, actual.totalPrice);
+            Assertions.assertEquals(expected.refundAmount, actual.refundAmount);
+            Assertions.assertEquals(expected.pointsUsed, actual.pointsUsed);
+        }
+        for (int flight = 0; flight < 20; flight++) {
+            Assertions.assertEquals(sequentialInventory.availableSeats("F" + flight), batchInventory.availableSeats("F" + flight));
+        }
+    }
+
+    @Test
+    void testCancellationRefunds() {
+        SeatInventory inventory = new SeatInventory();
+        inventory.addFlight("AA100", 10);
+        List<BatchBookingPipeline.BookingRequest> requests = List.of(
+                new BatchBookingPipeline.BookingRequest("AA100", 4, BOOKING_TIME, 100.0, 50, false, BOOKING_TIME.plusDays(3), 0),
+                new BatchBookingPipeline.BookingRequest("AA100", 2, BOOKING_TIME, 100.0, 50, true, BOOKING_TIME.plusDays(3), 0),
+                new BatchBookingPipeline.BookingRequest("AA100", 2, BOOKING_TIME, 100.0, 50, true, BOOKING_TIME.plusHours(30), 0));
+
+        List<FlightBookingSystem.BookingResult> results = pipeline.bookAll(inventory, requests);
+
+        Assertions.assertTrue(results.get(0).confirmation);
+        Assertions.assertEquals(160.0, results.get(0).totalPrice, 0.01);
+        // Full refund 48 hours or more before departure, half otherwise
+        Assertions.assertFalse(results.get(1).confirmation);
+        Assertions.assertEquals(80.0, results.get(1).refundAmount, 0.01);
+        Assertions.assertEquals(40.0, results.get(2).refundAmount, 0.01);
+        Assertions.assertEquals(10, inventory.availableSeats("AA100"));
+    }
+
+    @Test
+    void testInvalidBatchCommitsNothing() {
+        SeatInventory inventory = new SeatInventory();
+        inventory.addFlight("F1", 10);
+        inventory.addFlight("F2", 10);
+        List<BatchBookingPipeline.BookingRequest> unknownFlight = new ArrayList<>();
+        List<BatchBookingPipeline.BookingRequest> negativeSeats = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            unknownFlight.add(new BatchBookingPipeline.BookingRequest("F1", 1, BOOKING_TIME, 100.0, 50, false, BOOKING_TIME.plusDays(3), 0));
+            negativeSeats.add(new BatchBookingPipeline.BookingRequest("F2", 1, BOOKING_TIME, 100.0, 50, false, BOOKING_TIME.plusDays(3), 0));
+        }
+        unknownFlight.add(new BatchBookingPipeline.BookingRequest("ZZ999", 1, BOOKING_TIME, 100.0, 50, false, BOOKING_TIME.plusDays(3), 0));
+        negativeSeats.add(new BatchBookingPipeline.BookingRequest("F1", -4, BOOKING_TIME, 100.0, 50, false, BOOKING_TIME.plusDays(3), 0));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pipeline.bookAll(inventory, unknownFlight));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pipeline.bookAll(inventory, negativeSeats));
+        Assertions.assertEquals(10, inventory.availableSeats("F1"));
+        Assertions.assertEquals(10, inventory.availableSeats("F2"));
+    }
+
+    @Test
+    void testBatchCommitsNeverOversellAgainstConcurrentBookings() throws Exception {
+        SeatInventory inventory = new SeatInventory();
+        inventory.addFlight("AA100", 500);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> seated = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            boolean batched = thread % 2 == 0;
+            seated.add(executor.submit(() -> {
+                int seats = 0;
+                for (int round = 0; round < 100; round++) {
+                    if (batched) {
+                        List<BatchBookingPipeline.BookingRequest> requests = new ArrayList<>();
+                        for (int i = 0; i < 5; i++) {
+                            requests.add(new BatchBookingPipeline.BookingRequest("AA100", 1, BOOKING_TIME, 100.0, 50, false,
+                                    BOOKING_TIME.plusDays(3), 0));
+                        }
+                        for (FlightBookingSystem.BookingResult result : pipeline.bookAll(inventory, requests)) {
+                            seats += result.confirmation ? 1 : 0;
+                        }
+                    } else if (inventory.reserve("AA100", 1)) {
+                        seats++;
+                    }
+                }
+                return seats;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> future : seated) {
+            total += future.get();
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // 1200 seats were requested from 500
+        Assertions.assertEquals(500, total);
+        Assertions.assertEquals(0, inventory.availableSeats("AA100"));
+    }
+}
@@ -0,0 +1,66 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchFraudCheckerTest {
+    private FraudDetectionSystem fraudSystem;
+    private BatchFraudChecker batchChecker;
+
+    @BeforeEach
+    void setUp() {
+        fraudSystem = new FraudDetectionSystem();
+        batchChecker = new BatchFraudChecker(fraudSystem, new ForkJoinPool(4));
+    }
+
+    @Test
+    void testResultsMatchSequentialChecksInInputOrder() {
+        Random random = new Random(7);
+        String[] locations = {"New York", "Los Angeles", "Fraud Town"};
+        List<String> blacklistedLocations = Arrays.asList("Fraud Town");
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        List<BatchFraudChecker.AccountTransaction> batch = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            time = time.plusSeconds(random.nextInt(60));
+            // Every tenth event goes slightly back in time to exercise the out-of-order path
+            LocalDateTime timestamp = i % 10 == 9 ? time.minusMinutes(5) : time;
+            batch.add(new BatchFraudChecker.AccountTransaction("acc-" + random.nextInt(50),
+                    new FraudDetectionSystem.Transaction(random.nextInt(12000), timestamp, locations[random.nextInt(locations.length)])));
+        }
+        batch.add(new BatchFraudChecker.AccountTransaction("acc-sorted",
+                new FraudDetectionSystem.Transaction(100, time, "New York")));
+
+        List<FraudDetectionSystem.FraudCheckResult> results = batchChecker.checkAll(batch, blacklistedLocations);
+
+        Map<String, List<FraudDetectionSystem.Transaction>> histories = new HashMap<>();
+        Assertions.assertEquals(batch.size(), results.size());
+        for (int i = 0; i < batch.size(); i++) {
+            BatchFraudChecker.AccountTransaction entry = batch.get(i);
+            List<FraudDetectionSystem.Transaction> history = histories.computeIfAbsent(entry.accountId, id -> new ArrayList<>());
+            FraudDetectionSystem.FraudCheckResult expected = fraudSystem.checkForFraud(entry.transaction, history, blacklistedLocations);
+            history.add(entry.transaction);
+
+            FraudDetectionSystem.FraudCheckResult actual = results.get(i);
+            Assertions.assertEquals(expected.isFraudulent, actual.isFraudulent);
+            Assertions.assertEquals(expected.isBlocked, actual.isBlocked);
+            Assertions.assertEquals(expected.verificationRequired, actual.verificationRequired);
+            Assertions.assertEquals(expected.riskScore, actual.riskScore);
+        }
+    }
+
+    @Test
+    void testEmptyBatch() {
+        Assertions.assertTrue(batchChecker.checkAll(new ArrayList<>(), new ArrayList<>()).isEmpty());
+    }
+}
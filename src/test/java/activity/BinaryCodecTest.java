@@ -0,0 +1,170 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class BinaryCodecTest {
+
+    @Test
+    void testTransactionFrameRoundTrip() {
+        Random random = new Random(19);
+        String[] names = {"New York", "Los Angeles", "São Paulo", "東京"};
+        List<FraudDetectionSystem.Transaction> transactions = new ArrayList<>();
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 1000; i++) {
+            // Mostly forward, occasionally backwards in time
+            time = time.plusNanos(random.nextInt(600_000) * 1_000_000L).minusMinutes(i % 50 == 0 ? 90 : 0);
+            transactions.add(new FraudDetectionSystem.Transaction(random.nextDouble() * 12000, time, names[random.nextInt(names.length)]));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        new BinaryCodec.Encoder().writeTransactions(buffer, transactions);
+        buffer.flip();
+        List<FraudDetectionSystem.Transaction> decoded = new BinaryCodec.Decoder().readTransactions(buffer);
+
+        Assertions.assertEquals(transactions.size(), decoded.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Assertions.assertEquals(transactions.get(i).amount, decoded.get(i).amount);
+            Assertions.assertEquals(transactions.get(i).timestamp, decoded.get(i).timestamp);
+            Assertions.assertEquals(transactions.get(i).location, decoded.get(i).location);
+        }
+        Assertions.assertFalse(buffer.hasRemaining());
+        // Small deltas, raw amounts and one-byte location references
+        Assertions.assertTrue(buffer.limit() < transactions.size() * 14, "encoded " + buffer.limit() + " bytes");
+    }
+
+    @Test
+    void testResultRoundTrips() {
+        BinaryCodec.Encoder encoder = new BinaryCodec.Encoder();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        Map<String, Boolean> deviceStatus = new LinkedHashMap<>();
+        for (int i = 0; i < 11; i++) {
+            deviceStatus.put("Device " + i, i % 3 == 0);
+        }
+
+        encoder.writeFraudCheckResult(buffer, new FraudDetectionSystem.FraudCheckResult(true, false, true, 70));
+        encoder.writeBookingResult(buffer, new FlightBookingSystem.BookingResult(true, 123.45, 0.0, true));
+        encoder.writeEnergyManagementResult(buffer, new SmartEnergyManagementSystem.EnergyManagementResult(deviceStatus, true, false, 42.5));
+        encoder.writeEnergyManagementResult(buffer, new SmartEnergyManagementSystem.EnergyManagementResult(deviceStatus, false, true, 7.0));
+        buffer.flip();
+
+        BinaryCodec.Decoder decoder = new BinaryCodec.Decoder();
+        FraudDetectionSystem.FraudCheckResult fraud = decoder.readFraudCheckResult(buffer);
+        Assertions.assertTrue(fraud.isFraudulent);
+        Assertions.assertFalse(fraud.isBlocked);
+        Assertions.assertTrue(fraud.verificationRequired);
+        Assertions.assertEquals(70, fraud.riskScore);
+
+        FlightBookingSystem.BookingResult booking = decoder.readBookingResult(buffer);
+        Assertions.assertTrue(booking.confirmation);
+        Assertions.assertEquals(123.45, booking.totalPrice);
+        Assertions.assertEquals(0.0, booking.refundAmount);
+        Assertions.assertTrue(booking.pointsUsed);
+
+        SmartEnergyManagementSystem.EnergyManagementResult energy = decoder.readEnergyManagementResult(buffer);
+        Assertions.assertEquals(deviceStatus, energy.deviceStatus);
+        Assertions.assertTrue(energy.energySavingMode);
+        Assertions.assertEquals(42.5, energy.totalEnergyUsed);
+
+        // The second result refers to the device names by ID only, and reuses the holder's map
+        int position = buffer.position();
+        SmartEnergyManagementSystem.EnergyManagementResult reused = decoder.readEnergyManagementResult(buffer, energy);
+        Assertions.assertSame(energy, reused);
+        Assertions.assertEquals(deviceStatus, reused.deviceStatus);
+        Assertions.assertTrue(reused.temperatureRegulationActive);
+        Assertions.assertEquals(1 + 8 + 1 + 11, buffer.position() - position);
+    }
+
+    @Test
+    void testOverflowingWriteCanBeRetriedAfterFlush() {
+        Random random = new Random(190);
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<FraudDetectionSystem.Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            time = time.plusSeconds(random.nextInt(600));
+            // New names keep appearing, so overflows also hit records that define a name
+            transactions.add(new FraudDetectionSystem.Transaction(random.nextDouble() * 12000, time, "City " + random.nextInt(i + 1)));
+        }
+        BinaryCodec.Encoder encoder = new BinaryCodec.Encoder();
+        BinaryCodec.Decoder decoder = new BinaryCodec.Decoder();
+        ByteBuffer buffer = ByteBuffer.allocate(40);
+        List<FraudDetectionSystem.Transaction> decoded = new ArrayList<>();
+        int overflows = 0;
+
+        for (FraudDetectionSystem.Transaction transaction : transactions) {
+            try {
+                encoder.writeTransaction(buffer, transaction);
+            } catch (BufferOverflowException e) {
+                overflows++;
+                // Flush, then write the same record again
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    decoded.add(decoder.readTransaction(buffer));
+                }
+                buffer.clear();
+                encoder.writeTransaction(buffer, transaction);
+            }
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            decoded.add(decoder.readTransaction(buffer));
+        }
+
+        Assertions.assertTrue(overflows > 50);
+        Assertions.assertEquals(transactions.size(), decoded.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Assertions.assertEquals(transactions.get(i).amount, decoded.get(i).amount);
+            Assertions.assertEquals(transactions.get(i).timestamp, decoded.get(i).timestamp);
+            Assertions.assertEquals(transactions.get(i).location, decoded.get(i).location);
+        }
+
+        // A frame that does not fit leaves nothing behind
+        buffer.clear();
+        Assertions.assertThrows(BufferOverflowException.class, () -> encoder.writeTransactions(buffer, transactions));
+        Assertions.assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void testIncompleteFrameIsNotConsumed() {
+        List<FraudDetectionSystem.Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            transactions.add(new FraudDetectionSystem.Transaction(i, LocalDateTime.of(2024, 1, 1, 0, i), "New York"));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        new BinaryCodec.Encoder().writeTransactions(buffer, transactions);
+        buffer.flip();
+        int complete = buffer.limit();
+
+        buffer.limit(complete - 1);
+        BinaryCodec.Decoder decoder = new BinaryCodec.Decoder();
+        Assertions.assertEquals(-1, decoder.readFrameHeader(buffer, BinaryCodec.TRANSACTION));
+        Assertions.assertEquals(0, buffer.position());
+
+        buffer.limit(complete);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decoder.readFrameHeader(buffer, BinaryCodec.BOOKING_RESULT));
+        Assertions.assertEquals(10, decoder.readFrameHeader(buffer, BinaryCodec.TRANSACTION));
+    }
+
+    @Test
+    void testVarintAndZigzag() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        long[] values = {0, 1, -1, 63, -64, 64, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE};
+        for (long value : values) {
+            BinaryCodec.writeVarLong(buffer, BinaryCodec.zigzag(value));
+        }
+        buffer.flip();
+        for (long value : values) {
+            Assertions.assertEquals(value, BinaryCodec.unzigzag(BinaryCodec.readVarLong(buffer)));
+        }
+        Assertions.assertEquals(1, BinaryCodec.zigzag(-1));
+    }
+}
@@ -0,0 +1,69 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BlacklistIndexTest {
+
+    @Test
+    void testLookupMatchesList() {
+        List<String> blacklistedLocations = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            blacklistedLocations.add("LOC-" + i);
+        }
+        BlacklistIndex plain = BlacklistIndex.of(blacklistedLocations);
+        BlacklistIndex bloom = BlacklistIndex.withBloomFilter(blacklistedLocations);
+
+        for (int i = 0; i < 40000; i++) {
+            String location = "LOC-" + i;
+            boolean expected = i < 20000;
+            Assertions.assertEquals(expected, plain.contains(location));
+            Assertions.assertEquals(expected, bloom.contains(location));
+        }
+        Assertions.assertTrue(bloom.hasBloomFilter());
+        Assertions.assertEquals(20000, bloom.size());
+    }
+
+    @Test
+    void testIndexIsNotAffectedByLaterListChanges() {
+        List<String> blacklistedLocations = new ArrayList<>(Arrays.asList("Fraud Town"));
+        BlacklistIndex index = BlacklistIndex.of(blacklistedLocations);
+        blacklistedLocations.add("Suspicious City");
+
+        Assertions.assertTrue(index.contains("Fraud Town"));
+        Assertions.assertFalse(index.contains("Suspicious City"));
+        Assertions.assertFalse(index.contains(null));
+    }
+
+    @Test
+    void testCheckForFraudWithIndex() {
+        FraudDetectionSystem fraudSystem = new FraudDetectionSystem();
+        BlacklistIndex index = BlacklistIndex.withBloomFilter(Arrays.asList("Suspicious City", "Fraud Town"));
+
+        FraudDetectionSystem.FraudCheckResult result = fraudSystem.checkForFraud(
+                new FraudDetectionSystem.Transaction(100, LocalDateTime.now(), "Suspicious City"), new ArrayList<>(), index);
+        Assertions.assertTrue(result.isBlocked);
+        Assertions.assertEquals(100, result.riskScore);
+
+        result = fraudSystem.checkForFraud(
+                new FraudDetectionSystem.Transaction(100, LocalDateTime.now(), "Safe City"), new ArrayList<>(), index);
+        Assertions.assertFalse(result.isBlocked);
+        Assertions.assertEquals(0, result.riskScore);
+    }
+
+    @Test
+    void testHolderSwap() {
+        BlacklistIndex.Holder holder = new BlacklistIndex.Holder();
+        Assertions.assertFalse(holder.get().contains("Fraud Town"));
+
+        BlacklistIndex previous = holder.swap(BlacklistIndex.of(Arrays.asList("Fraud Town")));
+
+        Assertions.assertSame(BlacklistIndex.empty(), previous);
+        Assertions.assertTrue(holder.get().contains("Fraud Town"));
+    }
+}
@@ -0,0 +1,71 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+public class BulkFlightPricerTest {
+
+    @Test
+    void testEveryRowMatchesBookFlight() {
+        Random random = new Random(11);
+        FlightBookingSystem bookingSystem = new FlightBookingSystem();
+        BulkFlightPricer pricer = new BulkFlightPricer();
+        BulkFlightPricer.Batch batch = new BulkFlightPricer.Batch(20000);
+        LocalDateTime bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        FlightBookingSystem.BookingResult[] expected = new FlightBookingSystem.BookingResult[batch.capacity()];
+
+        for (int i = 0; i < batch.capacity(); i++) {
+            int passengers = 1 + random.nextInt(8);
+            int availableSeats = random.nextInt(10);
+            double currentPrice = 50 + random.nextInt(500) + random.nextDouble();
+            int previousSales = random.nextInt(200);
+            boolean isCancellation = random.nextInt(5) == 0;
+            LocalDateTime departureTime = bookingTime.plusMinutes(random.nextInt(96 * 60));
+            int rewardPoints = random.nextBoolean() ? 0 : random.nextInt(5000);
+
+            int row = batch.add(passengers, bookingTime, availableSeats, currentPrice, previousSales, isCancellation, departureTime, rewardPoints);
+            expected[row] = bookingSystem.bookFlight(passengers, bookingTime, availableSeats, currentPrice, previousSales,
+                    isCancellation, departureTime, rewardPoints);
+        }
+
+        pricer.price(batch);
+
+        for (int row = 0; row < batch.size(); row++) {
+            Assertions.assertEquals(expected[row].confirmation, batch.confirmation(row));
+            Assertions.assertEquals(expected[row].totalPrice, batch.totalPrice(row));
+            Assertions.assertEquals(expected[row].refundAmount, batch.refundAmount(row));
+            Assertions.assertEquals(expected[row].pointsUsed, batch.pointsUsed(row));
+        }
+    }
+
+    @Test
+    void testBatchIsReusable() {
+        BulkFlightPricer pricer = new BulkFlightPricer();
+        BulkFlightPricer.Batch batch = new BulkFlightPricer.Batch(4);
+        batch.add(2, 5, 100.0, 50, false, 48, 0);
+        pricer.price(batch);
+        Assertions.assertEquals(80.0, batch.totalPrice(0), 0.01);
+
+        batch.clear();
+        batch.add(1, 5, 100.0, 50, false, 12, 0);
+        pricer.price(batch);
+
+        Assertions.assertEquals(1, batch.size());
+        Assertions.assertTrue(batch.confirmation(0));
+        Assertions.assertEquals(140.0, batch.totalPrice(0), 0.01);
+    }
+
+    @Test
+    void testFullBatchRejectsRowsAndKeepsItsSize() {
+        BulkFlightPricer.Batch batch = new BulkFlightPricer.Batch(1);
+        batch.add(2, 5, 100.0, 50, false, 48, 0);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> batch.add(1, 5, 100.0, 50, false, 48, 0));
+        Assertions.assertEquals(1, batch.size());
+        new BulkFlightPricer().price(batch);
+        Assertions.assertEquals(80.0, batch.totalPrice(0), 0.01);
+    }
+}
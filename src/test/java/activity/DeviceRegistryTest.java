@@ -0,0 +1,134 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class DeviceRegistryTest {
+
+    @Test
+    void testBitsetManageEnergyMatchesMapVersion() {
+        Random random = new Random(20);
+        SmartEnergyManagementSystem energySystem = new SmartEnergyManagementSystem();
+        String[] extraNames = {"Security", "Refrigerator", "Heating", "TV", "Lights", "Oven", "Washer", "Dryer"};
+        double[] range = {20.0, 25.0};
+
+        for (int round = 0; round < 300; round++) {
+            Map<String, Integer> devicePriorities = new HashMap<>();
+            for (String name : extraNames) {
+                if (random.nextBoolean()) {
+                    devicePriorities.put(name, 1 + random.nextInt(4));
+                }
+            }
+            for (int i = 0; i < random.nextInt(150); i++) {
+                devicePriorities.put("Device " + i, 1 + random.nextInt(5));
+            }
+            DeviceRegistry registry = DeviceRegistry.of(devicePriorities);
+            DeviceStatus status = new DeviceStatus(registry);
+            SmartEnergyManagementSystem.EnergyManagementResult holder = new SmartEnergyManagementSystem.EnergyManagementResult();
+
+            for (int tick = 0; tick < 5; tick++) {
+                LocalDateTime time = LocalDateTime.of(2024, 1, 1, random.nextInt(24), 0);
+                List<SmartEnergyManagementSystem.DeviceSchedule> schedules = new ArrayList<>();
+                schedules.add(new SmartEnergyManagementSystem.DeviceSchedule(registry, "Device 3", time));
+                schedules.add(new SmartEnergyManagementSystem.DeviceSchedule(registry, "Dishwasher",
+                        random.nextBoolean() ? time : time.plusHours(1)));
+                double price = random.nextDouble();
+                double temperature = 15 + random.nextInt(15);
+                double limit = 50 + random.nextInt(50);
+                double used = limit - 20 + random.nextInt(100);
+
+                SmartEnergyManagementSystem.EnergyManagementResult expected = energySystem.manageEnergy(price, 0.5, devicePriorities,
+                        time, temperature, range, limit, used, schedules);
+                SmartEnergyManagementSystem.EnergyManagementResult actual = energySystem.manageEnergy(price, 0.5, registry,
+                        time, temperature, range, limit, used, schedules, status, holder);
+
+                Assertions.assertEquals(expected.deviceStatus, actual.deviceStatus);
+                Assertions.assertEquals(actual.deviceStatus, expected.deviceStatus);
+                Assertions.assertEquals(expected.energySavingMode, actual.energySavingMode);
+                Assertions.assertEquals(expected.temperatureRegulationActive, actual.temperatureRegulationActive);
+                Assertions.assertEquals(expected.totalEnergyUsed, actual.totalEnergyUsed);
+            }
+        }
+    }
+
+    @Test
+    void testInterningAndPriorities() {
+        DeviceRegistry registry = new DeviceRegistry();
+        Assertions.assertEquals(DeviceRegistry.HEATING, registry.find("Heating"));
+        Assertions.assertEquals(DeviceRegistry.COOLING, registry.find("Cooling"));
+        Assertions.assertEquals(-1, registry.find("TV"));
+
+        registry.setPriority("TV", 3);
+        registry.setPriority("Lights", 3);
+        registry.setPriority("Oven", 2);
+        registry.setPriority("Security", 1);
+        int tv = registry.find("TV");
+        Assertions.assertEquals(3, registry.priority(tv));
+        Assertions.assertEquals("TV", registry.name(tv));
+
+        // Least important first, ties by name
+        int[] order = registry.sheddingOrder();
+        Assertions.assertEquals(3, order.length);
+        Assertions.assertEquals("Lights", registry.name(order[0]));
+        Assertions.assertEquals("TV", registry.name(order[1]));
+        Assertions.assertEquals("Oven", registry.name(order[2]));
+
+        registry.removePriority("Lights");
+        Assertions.assertEquals(2, registry.sheddingOrder().length);
+        Assertions.assertFalse(registry.isPrioritized(registry.find("Lights")));
+    }
+
+    @Test
+    void testTickOnlyReadsTheRegistry() {
+        DeviceRegistry registry = new DeviceRegistry();
+        registry.setPriority("Lights", 1);
+        LocalDateTime noon = LocalDateTime.of(2024, 1, 1, 12, 0);
+        SmartEnergyManagementSystem energySystem = new SmartEnergyManagementSystem();
+        DeviceStatus status = new DeviceStatus(registry);
+        List<SmartEnergyManagementSystem.DeviceSchedule> schedules = new ArrayList<>();
+        schedules.add(new SmartEnergyManagementSystem.DeviceSchedule(registry, "Dishwasher", noon));
+        // Built against another registry, but the device is known here too
+        schedules.add(new SmartEnergyManagementSystem.DeviceSchedule(DeviceRegistry.of(Map.of("Lights", 2)), "Lights", noon));
+        int size = registry.size();
+
+        SmartEnergyManagementSystem.EnergyManagementResult result = energySystem.manageEnergy(0.1, 0.5, registry, noon, 22,
+                new double[]{20.0, 25.0}, 100, 10, schedules, status, new SmartEnergyManagementSystem.EnergyManagementResult());
+        Assertions.assertTrue(result.deviceStatus.get("Dishwasher"));
+        Assertions.assertTrue(result.deviceStatus.get("Lights"));
+        Assertions.assertEquals(size, registry.size());
+
+        List<SmartEnergyManagementSystem.DeviceSchedule> unresolved =
+                List.of(new SmartEnergyManagementSystem.DeviceSchedule("Oven", noon));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> energySystem.manageEnergy(0.1, 0.5, registry, noon, 22,
+                new double[]{20.0, 25.0}, 100, 10, unresolved, status, new SmartEnergyManagementSystem.EnergyManagementResult()));
+        Assertions.assertEquals(-1, registry.find("Oven"));
+    }
+
+    @Test
+    void testMapViewOverBitsets() {
+        DeviceRegistry registry = new DeviceRegistry();
+        for (int i = 0; i < 200; i++) {
+            registry.setPriority("Device " + i, 1);
+        }
+        DeviceStatus status = new DeviceStatus(registry);
+        status.set(registry.find("Device 70"), true);
+        status.set(registry.find("Device 150"), false);
+
+        Map<String, Boolean> view = status.asMap();
+        Assertions.assertEquals(2, view.size());
+        Assertions.assertTrue(view.get("Device 70"));
+        Assertions.assertFalse(view.get("Device 150"));
+        Assertions.assertNull(view.get("Device 1"));
+        Assertions.assertNull(view.get("Unknown"));
+        Assertions.assertFalse(view.containsKey("Device 1"));
+        Assertions.assertEquals(Map.of("Device 70", true, "Device 150", false), new HashMap<>(view));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> view.put("Device 1", true));
+    }
+}
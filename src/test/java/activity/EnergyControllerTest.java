@@ -0,0 +1,103 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class EnergyControllerTest {
+    private SmartEnergyManagementSystem energySystem;
+
+    @BeforeEach
+    void setUp() {
+        energySystem = new SmartEnergyManagementSystem();
+    }
+
+    @Test
+    void testDecisionsMatchManageEnergy() {
+        Random random = new Random(5);
+        Map<String, Integer> devicePriorities = new HashMap<>();
+        devicePriorities.put("Security", 1);
+        devicePriorities.put("Refrigerator", 2);
+        devicePriorities.put("Heating", 2);
+        for (int i = 0; i < 40; i++) {
+            devicePriorities.put("Device-" + i, 1 + random.nextInt(3));
+        }
+        double[] desiredTemperatureRange = {20.0, 24.0};
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<SmartEnergyManagementSystem.DeviceSchedule> scheduledDevices = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            scheduledDevices.add(new SmartEnergyManagementSystem.DeviceSchedule(
+                    random.nextBoolean() ? "Device-" + random.nextInt(40) : "Pool-" + i, time.plusMinutes(15L * random.nextInt(200))));
+        }
+
+        double price = 0.2;
+        double temperature = 22.0;
+        EnergyController controller = new EnergyController(0.25, devicePriorities, desiredTemperatureRange, 100.0,
+                scheduledDevices, price, temperature);
+        Map<String, Boolean> previousStatus = new HashMap<>();
+
+        for (int tick = 0; tick < 200; tick++) {
+            time = time.plusMinutes(15);
+            if (random.nextInt(4) == 0) {
+                price = 0.1 + random.nextDouble() * 0.3;
+                controller.onPriceChange(price);
+            }
+            if (random.nextInt(4) == 0) {
+                temperature = 17.0 + random.nextDouble() * 10.0;
+                controller.onTemperatureChange(temperature);
+            }
+            double totalEnergyUsedToday = random.nextInt(3) == 0 ? 95.0 + random.nextInt(20) : 50.0;
+
+            SmartEnergyManagementSystem.EnergyManagementResult expected = energySystem.manageEnergy(price, 0.25, devicePriorities,
+                    time, temperature, desiredTemperatureRange, 100.0, totalEnergyUsedToday, scheduledDevices);
+            Map<String, Boolean> changes = controller.tick(time, totalEnergyUsedToday);
+
+            Assertions.assertEquals(expected.deviceStatus, controller.deviceStatus());
+            Assertions.assertEquals(expected.energySavingMode, controller.isEnergySavingMode());
+            Assertions.assertEquals(expected.temperatureRegulationActive, controller.isTemperatureRegulationActive());
+            Assertions.assertEquals(expected.totalEnergyUsed, controller.totalEnergyUsed(), 0.0001);
+            Assertions.assertEquals(diff(previousStatus, expected.deviceStatus), changes);
+            previousStatus = expected.deviceStatus;
+        }
+    }
+
+    @Test
+    void testQuietTickReportsNoChanges() {
+        Map<String, Integer> devicePriorities = new HashMap<>();
+        devicePriorities.put("TV", 2);
+        devicePriorities.put("Fridge", 1);
+        EnergyController controller = new EnergyController(0.4, devicePriorities, new double[]{20.0, 25.0}, 100.0,
+                new ArrayList<>(), 0.3, 22.0);
+
+        Map<String, Boolean> changes = controller.tick(LocalDateTime.of(2024, 1, 1, 12, 0), 50.0);
+        Assertions.assertEquals(4, changes.size());
+
+        changes = controller.tick(LocalDateTime.of(2024, 1, 1, 12, 1), 50.0);
+        Assertions.assertTrue(changes.isEmpty());
+
+        controller.onPriceChange(0.5);
+        changes = controller.tick(LocalDateTime.of(2024, 1, 1, 12, 2), 50.0);
+        Assertions.assertEquals(Map.of("TV", false), changes);
+    }
+
+    private static Map<String, Boolean> diff(Map<String, Boolean> before, Map<String, Boolean> after) {
+        Map<String, Boolean> changes = new HashMap<>();
+        Set<String> devices = new HashSet<>(before.keySet());
+        devices.addAll(after.keySet());
+        for (String device : devices) {
+            if (before.get(device) != after.get(device)) {
+                changes.put(device, after.get(device));
+            }
+        }
+        return changes;
+    }
+}
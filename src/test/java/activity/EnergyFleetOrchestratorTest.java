@@ -0,0 +1,74 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class EnergyFleetOrchestratorTest {
+    private SmartEnergyManagementSystem energySystem;
+    private EnergyFleetOrchestrator orchestrator;
+
+    @BeforeEach
+    void setUp() {
+        energySystem = new SmartEnergyManagementSystem();
+        orchestrator = new EnergyFleetOrchestrator(energySystem, new ForkJoinPool(4));
+    }
+
+    @Test
+    void testSiteResultsMatchSerialEvaluation() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 14, 0);
+        List<EnergyFleetOrchestrator.SiteInput> sites = new ArrayList<>();
+        for (int site = 0; site < 300; site++) {
+            Map<String, Integer> devicePriorities = new HashMap<>();
+            for (int device = 0; device < 50; device++) {
+                devicePriorities.put("Device-" + device, 1 + (site + device) % 3);
+            }
+            sites.add(new EnergyFleetOrchestrator.SiteInput("site-" + site, devicePriorities, 15.0 + site % 15,
+                    new double[]{20.0, 24.0}, 100.0, 90.0 + site % 20, new ArrayList<>()));
+        }
+
+        EnergyFleetOrchestrator.FleetTickResult result = orchestrator.tick(0.3, 0.25, now, sites);
+
+        Assertions.assertEquals(sites.size(), result.siteResults.size());
+        for (EnergyFleetOrchestrator.SiteInput site : sites) {
+            SmartEnergyManagementSystem.EnergyManagementResult expected = energySystem.manageEnergy(0.3, 0.25, site.devicePriorities, now,
+                    site.currentTemperature, site.desiredTemperatureRange, site.energyUsageLimit, site.totalEnergyUsedToday,
+                    site.scheduledDevices);
+            SmartEnergyManagementSystem.EnergyManagementResult actual = result.result(site.siteId);
+            Assertions.assertEquals(expected.deviceStatus, actual.deviceStatus);
+            Assertions.assertEquals(expected.energySavingMode, actual.energySavingMode);
+            Assertions.assertEquals(expected.temperatureRegulationActive, actual.temperatureRegulationActive);
+            Assertions.assertEquals(expected.totalEnergyUsed, actual.totalEnergyUsed, 0.0001);
+        }
+
+        Assertions.assertTrue(result.percentileNanos(50) <= result.percentileNanos(99));
+        Assertions.assertTrue(result.percentileNanos(99) <= result.maxLatencyNanos());
+        Assertions.assertTrue(result.wallTimeNanos > 0);
+    }
+
+    @Test
+    void testEmptyFleet() {
+        EnergyFleetOrchestrator.FleetTickResult result = orchestrator.tick(0.3, 0.25, LocalDateTime.now(), new ArrayList<>());
+
+        Assertions.assertTrue(result.siteResults.isEmpty());
+        Assertions.assertEquals(0, result.percentileNanos(99));
+    }
+
+    @Test
+    void testDuplicateSiteIdsAreRejected() {
+        List<EnergyFleetOrchestrator.SiteInput> sites = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            sites.add(new EnergyFleetOrchestrator.SiteInput("site-1", new HashMap<>(), 22.0, new double[]{20.0, 24.0}, 100.0, 50.0,
+                    new ArrayList<>()));
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> orchestrator.tick(0.3, 0.25, LocalDateTime.now(), sites));
+    }
+}
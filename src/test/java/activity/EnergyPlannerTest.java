@@ -0,0 +1,119 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class EnergyPlannerTest {
+    private static final double[] RANGE = {20.0, 25.0};
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private SmartEnergyManagementSystem energySystem;
+    private Map<String, Integer> devicePriorities;
+    private double[] prices;
+
+    @BeforeEach
+    void setUp() {
+        energySystem = new SmartEnergyManagementSystem();
+        Random random = new Random(22);
+        devicePriorities = new HashMap<>();
+        devicePriorities.put("Security", 1);
+        devicePriorities.put("Refrigerator", 2);
+        devicePriorities.put("Heating", 3);
+        for (int i = 0; i < 40; i++) {
+            devicePriorities.put("Device " + i, 1 + random.nextInt(4));
+        }
+        prices = new double[96];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 0.2 + 0.1 * Math.sin(i / 8.0) + random.nextDouble() * 0.1;
+        }
+    }
+
+    @Test
+    void testTicksMatchManageEnergy() {
+        Random random = new Random(222);
+        List<SmartEnergyManagementSystem.DeviceSchedule> schedules = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            schedules.add(new SmartEnergyManagementSystem.DeviceSchedule(i % 2 == 0 ? "Device " + i : "Dishwasher " + i,
+                    START.plusMinutes(5L * random.nextInt(288))));
+        }
+        DeviceRegistry registry = DeviceRegistry.of(devicePriorities);
+        EnergyPlanner planner = new EnergyPlanner(registry, 0.25, RANGE, 60, START, 15, prices, schedules);
+        DeviceStatus status = new DeviceStatus(registry);
+        SmartEnergyManagementSystem.EnergyManagementResult holder = new SmartEnergyManagementSystem.EnergyManagementResult();
+
+        for (int minute = 0; minute < 24 * 60; minute += 5) {
+            LocalDateTime time = START.plusMinutes(minute);
+            double temperature = 15 + random.nextInt(15);
+            double used = 40 + random.nextInt(60);
+
+            assertSameResult(energySystem.manageEnergy(prices[minute / 15], 0.25, devicePriorities, time, temperature, RANGE, 60, used,
+                    schedules), planner.tick(time, temperature, used, status, holder));
+        }
+    }
+
+    @Test
+    void testIncrementalPriceAndScheduleUpdates() {
+        List<SmartEnergyManagementSystem.DeviceSchedule> schedules = new ArrayList<>();
+        DeviceRegistry registry = DeviceRegistry.of(devicePriorities);
+        EnergyPlanner planner = new EnergyPlanner(registry, 0.25, RANGE, 60, START, 15, prices, schedules);
+        DeviceStatus status = new DeviceStatus(registry);
+        SmartEnergyManagementSystem.EnergyManagementResult holder = new SmartEnergyManagementSystem.EnergyManagementResult();
+        LocalDateTime noon = START.plusHours(12);
+        int interval = planner.intervalOf(noon);
+
+        planner.updatePrice(interval, 0.9);
+        Assertions.assertTrue(planner.isEnergySavingMode(interval));
+        Assertions.assertFalse(planner.isNightMode(interval));
+        Assertions.assertTrue(planner.isNightMode(0));
+
+        SmartEnergyManagementSystem.DeviceSchedule schedule = new SmartEnergyManagementSystem.DeviceSchedule("Device 1", noon);
+        planner.addSchedule(schedule);
+        schedules.add(schedule);
+        assertSameResult(energySystem.manageEnergy(0.9, 0.25, devicePriorities, noon, 22, RANGE, 60, 70, schedules),
+                planner.tick(noon, 22, 70, status, holder));
+
+        Assertions.assertTrue(planner.removeSchedule(schedule));
+        schedules.clear();
+        planner.updatePrice(interval, 0.1);
+        assertSameResult(energySystem.manageEnergy(0.1, 0.25, devicePriorities, noon, 22, RANGE, 60, 70, schedules),
+                planner.tick(noon, 22, 70, status, holder));
+
+        // Priority changes apply after a refresh
+        devicePriorities.put("Device 0", 4);
+        registry.setPriority("Device 0", 4);
+        planner.refreshDevices();
+        assertSameResult(energySystem.manageEnergy(0.1, 0.25, devicePriorities, noon, 18, RANGE, 60, 70, schedules),
+                planner.tick(noon, 18, 70, status, holder));
+    }
+
+    @Test
+    void testRejectsMisalignedPlansAndTicks() {
+        DeviceRegistry registry = DeviceRegistry.of(devicePriorities);
+        List<SmartEnergyManagementSystem.DeviceSchedule> none = new ArrayList<>();
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new EnergyPlanner(registry, 0.25, RANGE, 60, START.plusMinutes(10), 15, prices, none));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new EnergyPlanner(registry, 0.25, RANGE, 60, START, 7, prices, none));
+
+        EnergyPlanner planner = new EnergyPlanner(registry, 0.25, RANGE, 60, START, 15, prices, none);
+        Assertions.assertEquals(-1, planner.intervalOf(START.minusSeconds(1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> planner.tick(START.plusDays(1), 22, 0,
+                new DeviceStatus(registry), new SmartEnergyManagementSystem.EnergyManagementResult()));
+    }
+
+    private static void assertSameResult(SmartEnergyManagementSystem.EnergyManagementResult expected,
+                                         SmartEnergyManagementSystem.EnergyManagementResult actual) {
+        Assertions.assertEquals(expected.deviceStatus, actual.deviceStatus);
+        Assertions.assertEquals(expected.energySavingMode, actual.energySavingMode);
+        Assertions.assertEquals(expected.temperatureRegulationActive, actual.temperatureRegulationActive);
+        Assertions.assertEquals(expected.totalEnergyUsed, actual.totalEnergyUsed);
+    }
+}
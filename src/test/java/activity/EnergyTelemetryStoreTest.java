@@ -0,0 +1,152 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class EnergyTelemetryStoreTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void testRangeReturnsAppendedTicks() {
+        Random random = new Random(23);
+        SmartEnergyManagementSystem energySystem = new SmartEnergyManagementSystem();
+        Map<String, Integer> devicePriorities = new HashMap<>();
+        for (int i = 0; i < 70; i++) {
+            devicePriorities.put("Device " + i, 1 + random.nextInt(4));
+        }
+        devicePriorities.put("Security", 1);
+        EnergyTelemetryStore store = new EnergyTelemetryStore(DeviceRegistry.of(devicePriorities), 100);
+        List<LocalDateTime> times = new ArrayList<>();
+        List<SmartEnergyManagementSystem.EnergyManagementResult> results = new ArrayList<>();
+        LocalDateTime time = START;
+
+        for (int tick = 0; tick < 1050; tick++) {
+            // Mostly regular minute ticks, with occasional jitter and gaps
+            time = time.plusSeconds(random.nextInt(10) == 0 ? random.nextInt(5000) : 60).plusNanos(random.nextInt(3) * 1_000_000L);
+            List<SmartEnergyManagementSystem.DeviceSchedule> schedules = new ArrayList<>();
+            schedules.add(new SmartEnergyManagementSystem.DeviceSchedule("Dishwasher", time));
+            SmartEnergyManagementSystem.EnergyManagementResult result = energySystem.manageEnergy(random.nextDouble(), 0.5, devicePriorities,
+                    time, 15 + random.nextInt(15), new double[]{20.0, 25.0}, 60, 40 + random.nextDouble() * 40,
+                    random.nextInt(5) == 0 ? schedules : new ArrayList<>());
+            store.append(time, result);
+            times.add(time);
+            results.add(result);
+        }
+
+        Assertions.assertEquals(1050, store.size());
+        Assertions.assertEquals(10, store.chunkCount());
+        List<EnergyTelemetryStore.Tick> all = store.range(START, time.plusSeconds(1));
+        Assertions.assertEquals(1050, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            Assertions.assertEquals(times.get(i), all.get(i).time());
+            Assertions.assertEquals(results.get(i).totalEnergyUsed, all.get(i).totalEnergyUsed());
+            Assertions.assertEquals(results.get(i).deviceStatus, all.get(i).deviceStatus());
+        }
+
+        // A window spanning a chunk boundary, exclusive at the end
+        List<EnergyTelemetryStore.Tick> window = store.range(times.get(150), times.get(260));
+        Assertions.assertEquals(times.get(150), window.get(0).time());
+        Assertions.assertEquals(times.get(259), window.get(window.size() - 1).time());
+        Assertions.assertTrue(store.range(START.minusDays(1), START).isEmpty());
+    }
+
+    @Test
+    void testRegularTicksCompressWell() {
+        DeviceRegistry registry = new DeviceRegistry();
+        for (int i = 0; i < 100; i++) {
+            registry.setPriority("Device " + i, 2);
+        }
+        EnergyTelemetryStore store = new EnergyTelemetryStore(registry);
+        DeviceStatus status = new DeviceStatus(registry);
+        for (int i = 0; i < 100; i++) {
+            status.set(registry.find("Device " + i), i % 3 == 0);
+        }
+        for (int tick = 0; tick < 4096; tick++) {
+            status.set(registry.find("Device 7"), tick % 500 < 250);
+            store.append(START.plusMinutes(tick), 40 + (tick % 60) * 0.5, status);
+        }
+
+        // Raw: 8 bytes of time, 8 of energy and 2 x 16 bytes of bitsets per tick
+        Assertions.assertEquals(4, store.chunkCount());
+        Assertions.assertTrue(store.compressedBytes() < 4096 * 48 / 10, "compressed to " + store.compressedBytes());
+        List<EnergyTelemetryStore.Tick> ticks = store.range(START.plusMinutes(1250), START.plusMinutes(1253));
+        Assertions.assertEquals(3, ticks.size());
+        Assertions.assertEquals(40 + (1251 % 60) * 0.5, ticks.get(1).totalEnergyUsed());
+        Assertions.assertEquals(false, ticks.get(1).deviceStatus().get("Device 7"));
+        Assertions.assertEquals(true, ticks.get(1).deviceStatus().get("Device 3"));
+        Assertions.assertNull(ticks.get(1).deviceStatus().get("Heating"));
+    }
+
+    @Test
+    void testDownsampleMatchesRawTicks() {
+        Random random = new Random(230);
+        DeviceRegistry registry = new DeviceRegistry();
+        for (int i = 0; i < 10; i++) {
+            registry.setPriority("Device " + i, 2);
+        }
+        EnergyTelemetryStore store = new EnergyTelemetryStore(registry, 64);
+        DeviceStatus status = new DeviceStatus(registry);
+        List<Double> energies = new ArrayList<>();
+        List<Boolean> device3 = new ArrayList<>();
+        for (int tick = 0; tick < 24 * 60; tick++) {
+            for (int i = 0; i < 10; i++) {
+                if (random.nextInt(20) == 0) {
+                    status.set(registry.find("Device " + i), random.nextBoolean());
+                }
+            }
+            double energy = random.nextInt(1000) / 10.0;
+            store.append(START.plusMinutes(tick), energy, status);
+            energies.add(energy);
+            device3.add(status.isOn(registry.find("Device 3")));
+        }
+
+        // Hourly buckets hold whole chunks and partial ones; the range cuts the first and last hour
+        LocalDateTime from = START.plusMinutes(30);
+        List<EnergyTelemetryStore.Summary> hourly = store.downsample(from, START.plusHours(23).plusMinutes(30), Duration.ofHours(1));
+        Assertions.assertEquals(23, hourly.size());
+        for (int bucket = 0; bucket < hourly.size(); bucket++) {
+            EnergyTelemetryStore.Summary summary = hourly.get(bucket);
+            Assertions.assertEquals(from.plusHours(bucket), summary.start());
+            Assertions.assertEquals(60, summary.ticks());
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            int on = 0;
+            for (int tick = 30 + bucket * 60; tick < 90 + bucket * 60; tick++) {
+                sum += energies.get(tick);
+                min = Math.min(min, energies.get(tick));
+                max = Math.max(max, energies.get(tick));
+                on += device3.get(tick) ? 1 : 0;
+            }
+            Assertions.assertEquals(sum / 60, summary.averageEnergy(), 1e-9);
+            Assertions.assertEquals(min, summary.minEnergy());
+            Assertions.assertEquals(max, summary.maxEnergy());
+            Assertions.assertEquals(on / 60.0, summary.onFraction("Device 3"), 1e-12);
+            Assertions.assertEquals(0, summary.onFraction("Unknown"));
+        }
+
+        // A daily bucket folds in every sealed chunk without decoding it
+        EnergyTelemetryStore.Summary daily = store.downsample(START, START.plusDays(1), Duration.ofDays(1)).get(0);
+        Assertions.assertEquals(24 * 60, daily.ticks());
+        Assertions.assertEquals(device3.stream().filter(Boolean::booleanValue).count() / (24 * 60.0), daily.onFraction("Device 3"), 1e-12);
+    }
+
+    @Test
+    void testRejectsOutOfOrderTicks() {
+        DeviceRegistry registry = new DeviceRegistry();
+        EnergyTelemetryStore store = new EnergyTelemetryStore(registry);
+        DeviceStatus status = new DeviceStatus(registry);
+        store.append(START, 10, status);
+        store.append(START, 11, status);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> store.append(START.minusSeconds(1), 12, status));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EnergyTelemetryStore(registry, 0));
+    }
+}
@@ -0,0 +1,97 @@
+package activity;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class EngineMetricsTest {
+
+    @BeforeEach
+    void setUp() {
+        EngineMetrics.reset();
+        EngineMetrics.enable();
+    }
+
+    @AfterEach
+    void tearDown() {
+        EngineMetrics.disable();
+        EngineMetrics.reset();
+    }
+
+    @Test
+    void testRecordsDecisionsAndRuleCounters() {
+        FraudDetectionSystem fraudSystem = new FraudDetectionSystem();
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<FraudDetectionSystem.Transaction> history = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            history.add(new FraudDetectionSystem.Transaction(100, now.minusMinutes(i), "New York"));
+        }
+        fraudSystem.checkForFraud(new FraudDetectionSystem.Transaction(100, now, "Fraud Town"), history, Arrays.asList("Fraud Town"));
+        fraudSystem.checkForFraud(new FraudDetectionSystem.Transaction(100, now, "New York"), history, Arrays.asList("Fraud Town"));
+
+        new FlightBookingSystem().bookFlight(2, now, 5, 100.0, 50, false, now.plusDays(2), 0);
+
+        Map<String, Integer> devicePriorities = new HashMap<>();
+        devicePriorities.put("TV", 2);
+        devicePriorities.put("Lights", 3);
+        devicePriorities.put("Fridge", 1);
+        new SmartEnergyManagementSystem().manageEnergy(0.3, 0.4, devicePriorities, now, 22.0,
+                new double[]{20.0, 25.0}, 100.0, 101.0, new ArrayList<>());
+
+        EngineMetrics.Snapshot snapshot = EngineMetrics.snapshot();
+        Assertions.assertEquals(2, snapshot.latency(EngineMetrics.CHECK_FOR_FRAUD).count());
+        // The blacklisted check never reaches the velocity rule
+        Assertions.assertEquals(1, snapshot.latency(EngineMetrics.RULE_VELOCITY).count());
+        Assertions.assertEquals(2, snapshot.latency(EngineMetrics.RULE_BLACKLIST).count());
+        Assertions.assertEquals(2, snapshot.latency(EngineMetrics.RULE_AMOUNT).count());
+        Assertions.assertEquals(1, snapshot.counter("fraud.blacklistHits"));
+        Assertions.assertEquals(5, snapshot.counter("fraud.windowTransactionsScanned"));
+        Assertions.assertEquals(1, snapshot.latency(EngineMetrics.BOOK_FLIGHT).count());
+        Assertions.assertEquals(1, snapshot.latency(EngineMetrics.MANAGE_ENERGY).count());
+        Assertions.assertEquals(2, snapshot.counter("energy.devicesShed"));
+        Assertions.assertTrue(snapshot.toString().contains("fraud.blacklistHits 1"));
+    }
+
+    @Test
+    void testDisabledMetricsRecordNothing() {
+        EngineMetrics.disable();
+        new FlightBookingSystem().bookFlight(2, LocalDateTime.now(), 5, 100.0, 50, false, LocalDateTime.now().plusDays(2), 0);
+
+        Assertions.assertEquals(0, EngineMetrics.start());
+        Assertions.assertEquals(0, EngineMetrics.snapshot().latency(EngineMetrics.BOOK_FLIGHT).count());
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        EngineMetrics.LatencyHistogram histogram = new EngineMetrics.LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        EngineMetrics.HistogramSnapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(1000, snapshot.count());
+        Assertions.assertEquals(1_000_000, snapshot.maxNanos());
+        // Log-linear buckets keep every percentile within 12.5% of the exact value
+        Assertions.assertEquals(500_000, snapshot.p50Nanos(), 500_000 * 0.125);
+        Assertions.assertEquals(990_000, snapshot.p99Nanos(), 990_000 * 0.125);
+    }
+
+    @Test
+    void testHistogramBucketBounds() {
+        for (long value : new long[]{0, 7, 8, 15, 16, 1023, 1024, 123_456_789L, Long.MAX_VALUE}) {
+            int bucket = EngineMetrics.LatencyHistogram.bucketOf(value);
+            Assertions.assertTrue(value <= EngineMetrics.LatencyHistogram.upperBoundOf(bucket));
+            if (bucket > 0) {
+                Assertions.assertTrue(value > EngineMetrics.LatencyHistogram.upperBoundOf(bucket - 1));
+            }
+        }
+    }
+}
@@ -131,4 +131,23 @@ public class FlightBookingSystemTest {
         Assertions.assertEquals(0.0, result.totalPrice, 0.01);
         Assertions.assertEquals(40.0, result.refundAmount, 0.01);
     }
+
+    @Test
+    void testBookingIntoReusableResult() {
+        LocalDateTime bookingTime = LocalDateTime.now();
+        FlightBookingSystem.BookingResult holder = new FlightBookingSystem.BookingResult();
+
+        FlightBookingSystem.BookingResult result = bookingSystem.bookFlight(6, bookingTime, 10, 100.0, 50, false, bookingTime.plusHours(12), 1000, holder);
+        FlightBookingSystem.BookingResult expected = bookingSystem.bookFlight(6, bookingTime, 10, 100.0, 50, false, bookingTime.plusHours(12), 1000);
+        Assertions.assertSame(holder, result);
+        Assertions.assertEquals(expected.confirmation, result.confirmation);
+        Assertions.assertEquals(expected.totalPrice, result.totalPrice);
+        Assertions.assertEquals(expected.pointsUsed, result.pointsUsed);
+
+        // Reusing the holder for a rejected booking clears every field
+        bookingSystem.bookFlight(6, bookingTime, 5, 100.0, 50, false, bookingTime.plusDays(2), 1000, holder);
+        Assertions.assertFalse(holder.confirmation);
+        Assertions.assertEquals(0.0, holder.totalPrice);
+        Assertions.assertFalse(holder.pointsUsed);
+    }
 }
@@ -0,0 +1,130 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class FraudBacktestRunnerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReportMatchesSequentialChecks() throws IOException {
+        Random random = new Random(21);
+        String[] names = {"New York", "Los Angeles", "Fraud Town"};
+        List<String> blacklistedLocations = Arrays.asList("Fraud Town");
+        FraudDetectionSystem fraudSystem = new FraudDetectionSystem();
+        Map<String, List<FraudDetectionSystem.Transaction>> histories = new HashMap<>();
+        List<String> lines = new ArrayList<>();
+        lines.add("account,timestamp,amount,location");
+        long blocked = 0;
+        long verification = 0;
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        for (int i = 0; i < 20_000; i++) {
+            time = time.plusSeconds(random.nextInt(30));
+            String accountId = "acc-" + random.nextInt(50);
+            FraudDetectionSystem.Transaction transaction = new FraudDetectionSystem.Transaction(
+                    random.nextInt(12000), time, names[random.nextInt(names.length)]);
+            List<FraudDetectionSystem.Transaction> history = histories.computeIfAbsent(accountId, k -> new ArrayList<>());
+            // Only the last two hours matter, which keeps the reference run fast
+            history.removeIf(previous -> previous.timestamp.isBefore(transaction.timestamp.minusHours(2)));
+            FraudDetectionSystem.FraudCheckResult expected = fraudSystem.checkForFraud(transaction, history, blacklistedLocations);
+            blocked += expected.isBlocked ? 1 : 0;
+            verification += expected.verificationRequired ? 1 : 0;
+            history.add(transaction);
+            lines.add(accountId + "," + time + "," + transaction.amount + "," + transaction.location);
+        }
+        Path file = Files.write(directory.resolve("transactions.csv"), lines);
+
+        FraudBacktestRunner runner = new FraudBacktestRunner(FraudRulePipeline.standard(), BlacklistIndex.of(blacklistedLocations), 60, 4);
+        FraudBacktestRunner.BacktestReport report = runner.run(file);
+
+        Assertions.assertEquals(20_000, report.events());
+        Assertions.assertEquals((double) blocked / 20_000, report.blockRate(), 1e-12);
+        Assertions.assertEquals((double) verification / 20_000, report.verificationRate(), 1e-12);
+        Assertions.assertTrue(report.ruleHits(EngineMetrics.RULE_BLACKLIST) > 0);
+        Assertions.assertTrue(report.ruleHits(EngineMetrics.RULE_VELOCITY) > 0);
+        Assertions.assertTrue(report.eventsPerSecond() > 0);
+        Assertions.assertTrue(report.toString().contains("rule.amount.hits "));
+    }
+
+    @Test
+    void testLowerAmountThresholdRaisesVerificationRate() throws IOException {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add("acc-" + i % 10 + "," + time.plusHours(i) + "," + (i * 100) + ",New York");
+        }
+        Path file = Files.write(directory.resolve("amounts.csv"), lines);
+
+        FraudBacktestRunner.BacktestReport standard = new FraudBacktestRunner(FraudRulePipeline.standard(),
+                BlacklistIndex.empty(), 60, 2).run(file);
+        FraudBacktestRunner.BacktestReport strict = new FraudBacktestRunner(new FraudRulePipeline(Arrays.asList(
+                new FraudRulePipeline.AmountRule(5000), new FraudRulePipeline.VelocityRule(60, 10),
+                new FraudRulePipeline.LocationHopRule(30), new FraudRulePipeline.BlacklistRule())),
+                BlacklistIndex.empty(), 60, 2).run(file);
+
+        // Amounts 0..9900: none exceed 10000, 49 exceed 5000
+        Assertions.assertEquals(0, standard.verificationRate());
+        Assertions.assertEquals(0.49, strict.verificationRate(), 1e-12);
+        Assertions.assertEquals(49, strict.ruleHits(EngineMetrics.RULE_AMOUNT));
+    }
+
+    @Test
+    void testRuleHitsIgnoreShortCircuitAndSharedPipelineUse() throws IOException {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        // The hop into Fraud Town is blacklisted, which fixes the score before the hop rule runs
+        Path file = Files.write(directory.resolve("hops.csv"), Arrays.asList(
+                "acc-1," + time + ",100,New York",
+                "acc-1," + time.plusMinutes(5) + ",100,Fraud Town"));
+        FraudRulePipeline pipeline = FraudRulePipeline.standard();
+        FraudBacktestRunner runner = new FraudBacktestRunner(pipeline, BlacklistIndex.of(Arrays.asList("Fraud Town")), 60, 1);
+
+        EngineMetrics.reset();
+        EngineMetrics.enable();
+        FraudBacktestRunner.BacktestReport report;
+        try {
+            report = runner.run(file);
+        } finally {
+            EngineMetrics.disable();
+        }
+
+        Assertions.assertEquals(1, report.ruleHits(EngineMetrics.RULE_BLACKLIST));
+        Assertions.assertEquals(1, report.ruleHits(EngineMetrics.RULE_LOCATION));
+        Assertions.assertEquals(1, report.blocked);
+        // Each rule ran once per event: one blacklist hit, and one window entry scanned for the second event
+        EngineMetrics.Snapshot snapshot = EngineMetrics.snapshot();
+        Assertions.assertEquals(1, snapshot.counter("fraud.blacklistHits"));
+        Assertions.assertEquals(1, snapshot.counter("fraud.windowTransactionsScanned"));
+        Assertions.assertEquals(2, snapshot.latency(EngineMetrics.RULE_VELOCITY).count());
+        EngineMetrics.reset();
+        // Other evaluations on the same pipeline do not leak into a later report
+        pipeline.evaluate(new FraudDetectionSystem.Transaction(20000, time, "New York"), new ArrayList<>(), location -> false,
+                new FraudDetectionSystem.FraudCheckResult());
+        Assertions.assertEquals(0, runner.run(file).ruleHits(EngineMetrics.RULE_AMOUNT));
+    }
+
+    @Test
+    void testMalformedLineIsReported() throws IOException {
+        Path file = Files.write(directory.resolve("broken.csv"), Arrays.asList(
+                "acc-1,2024-01-01T00:00,100,New York",
+                "acc-1,not-a-time,100,New York"));
+        FraudBacktestRunner runner = new FraudBacktestRunner(FraudRulePipeline.standard(), BlacklistIndex.empty(), 60, 2);
+
+        IllegalArgumentException error = Assertions.assertThrows(IllegalArgumentException.class, () -> runner.run(file));
+        Assertions.assertTrue(error.getMessage().startsWith("Line 2"));
+    }
+}
@@ -0,0 +1,170 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FraudDecisionProcessorTest {
+
+    @Test
+    void testDecisionsMatchSequentialScoringInAccountOrder() throws InterruptedException {
+        Random random = new Random(18);
+        String[] names = {"New York", "Los Angeles", "Fraud Town"};
+        BlacklistIndex blacklist = BlacklistIndex.of(Arrays.asList("Fraud Town"));
+        Map<FraudDetectionSystem.Transaction, String> accounts = new IdentityHashMap<>();
+        List<FraudDetectionSystem.Transaction> transactions = new ArrayList<>();
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 5000; i++) {
+            time = time.plusSeconds(random.nextInt(60));
+            FraudDetectionSystem.Transaction transaction = new FraudDetectionSystem.Transaction(
+                    random.nextInt(12000), time, names[random.nextInt(names.length)]);
+            accounts.put(transaction, "acc-" + random.nextInt(20));
+            transactions.add(transaction);
+        }
+
+        StreamingFraudScorer sequential = new StreamingFraudScorer();
+        Map<FraudDetectionSystem.Transaction, FraudDetectionSystem.FraudCheckResult> expected = new IdentityHashMap<>();
+        for (FraudDetectionSystem.Transaction transaction : transactions) {
+            expected.put(transaction, sequential.score(accounts.get(transaction), transaction, blacklist));
+        }
+
+        FraudDecisionProcessor processor = new FraudDecisionProcessor(accounts::get, blacklist, 4, 64, 8, ForkJoinPool.commonPool());
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        try (SubmissionPublisher<FraudDetectionSystem.Transaction> source = new SubmissionPublisher<>()) {
+            source.subscribe(processor);
+            transactions.forEach(source::submit);
+        }
+
+        Assertions.assertTrue(subscriber.completed.await(30, TimeUnit.SECONDS));
+        Assertions.assertNull(subscriber.error);
+        Assertions.assertEquals(transactions.size(), subscriber.decisions.size());
+        Map<String, LocalDateTime> lastSeen = new HashMap<>();
+        for (FraudDecisionProcessor.Decision decision : subscriber.decisions) {
+            FraudDetectionSystem.FraudCheckResult result = expected.get(decision.transaction());
+            Assertions.assertEquals(result.isFraudulent, decision.isFraudulent);
+            Assertions.assertEquals(result.isBlocked, decision.isBlocked);
+            Assertions.assertEquals(result.verificationRequired, decision.verificationRequired);
+            Assertions.assertEquals(result.riskScore, decision.riskScore);
+            LocalDateTime previous = lastSeen.put(decision.accountId(), decision.transaction().timestamp);
+            Assertions.assertTrue(previous == null || !decision.transaction().timestamp.isBefore(previous));
+        }
+    }
+
+    @Test
+    void testUpstreamDemandStaysWithinBuffer() throws InterruptedException {
+        FraudDecisionProcessor processor = new FraudDecisionProcessor(transaction -> transaction.location,
+                BlacklistIndex.empty(), 2, 16, 4, ForkJoinPool.commonPool());
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        CountingSource source = new CountingSource(1000);
+        source.subscribe(processor);
+
+        Assertions.assertTrue(subscriber.completed.await(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(1000, subscriber.decisions.size());
+        Assertions.assertTrue(source.maxOutstanding <= 16, "outstanding " + source.maxOutstanding);
+    }
+
+    @Test
+    void testOutOfOrderEventFailsTheStream() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        FraudDecisionProcessor processor = new FraudDecisionProcessor(transaction -> "acc-1", BlacklistIndex.empty(), 1);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        try (SubmissionPublisher<FraudDetectionSystem.Transaction> source = new SubmissionPublisher<>()) {
+            source.subscribe(processor);
+            source.submit(new FraudDetectionSystem.Transaction(100, now, "New York"));
+            source.submit(new FraudDetectionSystem.Transaction(100, now.minusMinutes(5), "New York"));
+        }
+
+        Assertions.assertTrue(subscriber.completed.await(30, TimeUnit.SECONDS));
+        Assertions.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<FraudDetectionSystem.FraudCheckResult> {
+        final List<FraudDecisionProcessor.Decision> decisions = new ArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final long demand;
+        volatile Throwable error;
+
+        CollectingSubscriber(long demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(demand);
+        }
+
+        @Override
+        public void onNext(FraudDetectionSystem.FraudCheckResult item) {
+            decisions.add((FraudDecisionProcessor.Decision) item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    // Emits on request and records the largest number of requested but undelivered items
+    private static class CountingSource implements Flow.Publisher<FraudDetectionSystem.Transaction> {
+        final int total;
+        volatile long maxOutstanding;
+
+        CountingSource(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super FraudDetectionSystem.Transaction> subscriber) {
+            AtomicLong outstanding = new AtomicLong();
+            AtomicLong emitted = new AtomicLong();
+            AtomicLong wip = new AtomicLong();
+            LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    maxOutstanding = Math.max(maxOutstanding, outstanding.addAndGet(n));
+                    if (wip.getAndIncrement() != 0) {
+                        return;
+                    }
+                    do {
+                        while (outstanding.get() > 0 && emitted.get() < total) {
+                            outstanding.decrementAndGet();
+                            long i = emitted.getAndIncrement();
+                            subscriber.onNext(new FraudDetectionSystem.Transaction(100, start.plusMinutes(i), "Location " + i % 7));
+                        }
+                        if (emitted.get() == total && emitted.getAndIncrement() == total) {
+                            subscriber.onComplete();
+                        }
+                    } while (wip.decrementAndGet() != 0);
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class FraudRulePipelineTest {
+
+    @Test
+    void testPipelineMatchesColumnarCheck() {
+        Random random = new Random(16);
+        String[] names = {"New York", "Los Angeles", "Fraud Town"};
+        List<String> blacklistedLocations = Arrays.asList("Fraud Town");
+        BlacklistIndex blacklist = BlacklistIndex.of(blacklistedLocations);
+        FraudDetectionSystem fraudSystem = new FraudDetectionSystem();
+        LocationDictionary locations = new LocationDictionary();
+        TransactionColumns columns = new TransactionColumns(locations);
+        List<FraudDetectionSystem.Transaction> history = new ArrayList<>();
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        for (int i = 0; i < 2000; i++) {
+            time = time.plusSeconds(random.nextInt(400));
+            FraudDetectionSystem.Transaction transaction = new FraudDetectionSystem.Transaction(
+                    random.nextInt(12000), time, names[random.nextInt(names.length)]);
+
+            FraudDetectionSystem.FraudCheckResult expected = fraudSystem.checkForFraud(transaction.amount,
+                    TransactionColumns.toEpochMillis(time), locations.idOf(transaction.location), columns, blacklist);
+            FraudDetectionSystem.FraudCheckResult actual = fraudSystem.checkForFraud(transaction, history, blacklistedLocations);
+
+            Assertions.assertEquals(expected.isFraudulent, actual.isFraudulent);
+            Assertions.assertEquals(expected.isBlocked, actual.isBlocked);
+            Assertions.assertEquals(expected.verificationRequired, actual.verificationRequired);
+            Assertions.assertEquals(expected.riskScore, actual.riskScore);
+            history.add(transaction);
+            columns.add(transaction);
+        }
+    }
+
+    @Test
+    void testBlacklistSkipsVelocityScan() {
+        CountingRule velocity = new CountingRule(new FraudRulePipeline.VelocityRule(60, 10));
+        FraudRulePipeline pipeline = new FraudRulePipeline(Arrays.asList(velocity, new FraudRulePipeline.AmountRule(10000),
+                new FraudRulePipeline.LocationHopRule(30), new FraudRulePipeline.BlacklistRule()));
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<FraudDetectionSystem.Transaction> history = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            history.add(new FraudDetectionSystem.Transaction(100, now.minusMinutes(i), "New York"));
+        }
+
+        FraudDetectionSystem.FraudCheckResult result = pipeline.evaluate(new FraudDetectionSystem.Transaction(15000, now, "Fraud Town"),
+                history, "Fraud Town"::equals, new FraudDetectionSystem.FraudCheckResult());
+
+        Assertions.assertTrue(result.isFraudulent);
+        Assertions.assertTrue(result.isBlocked);
+        Assertions.assertTrue(result.verificationRequired);
+        Assertions.assertEquals(100, result.riskScore);
+        Assertions.assertEquals(0, velocity.calls);
+        Assertions.assertEquals(EngineMetrics.RULE_VELOCITY, pipeline.rules().get(3).name());
+        Assertions.assertEquals(1, pipeline.hits(EngineMetrics.RULE_BLACKLIST));
+        Assertions.assertEquals(1, pipeline.hits(EngineMetrics.RULE_AMOUNT));
+        // The amount rule already flagged the transaction, so the location hop had nothing left to decide
+        Assertions.assertEquals(0, pipeline.hits(EngineMetrics.RULE_LOCATION));
+    }
+
+    @Test
+    void testCustomThresholds() {
+        FraudRulePipeline pipeline = new FraudRulePipeline(Arrays.asList(new FraudRulePipeline.AmountRule(500),
+                new FraudRulePipeline.VelocityRule(10, 2), new FraudRulePipeline.LocationHopRule(5)));
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<FraudDetectionSystem.Transaction> history = Arrays.asList(
+                new FraudDetectionSystem.Transaction(100, now.minusMinutes(9), "New York"),
+                new FraudDetectionSystem.Transaction(100, now.minusMinutes(8), "New York"),
+                new FraudDetectionSystem.Transaction(100, now.minusMinutes(6), "Los Angeles"));
+
+        FraudDetectionSystem.FraudCheckResult result = pipeline.evaluate(new FraudDetectionSystem.Transaction(600, now, "New York"),
+                history, location -> false, new FraudDetectionSystem.FraudCheckResult());
+
+        // Amount and velocity fire; the hop from Los Angeles is 6 minutes old, outside the 5-minute rule
+        Assertions.assertTrue(result.isFraudulent);
+        Assertions.assertTrue(result.isBlocked);
+        Assertions.assertEquals(80, result.riskScore);
+        Assertions.assertEquals(0, pipeline.hits(EngineMetrics.RULE_LOCATION));
+        Assertions.assertEquals(0, pipeline.hits("unknown"));
+    }
+
+    @Test
+    void testEmptyPipelineAllowsEverything() {
+        FraudRulePipeline pipeline = new FraudRulePipeline(Collections.emptyList());
+
+        FraudDetectionSystem.FraudCheckResult result = new FraudDetectionSystem(pipeline).checkForFraud(
+                new FraudDetectionSystem.Transaction(50000, LocalDateTime.now(), "Fraud Town"), new ArrayList<>(),
+                Arrays.asList("Fraud Town"));
+
+        Assertions.assertFalse(result.isFraudulent);
+        Assertions.assertFalse(result.isBlocked);
+        Assertions.assertEquals(0, result.riskScore);
+    }
+
+    private static class CountingRule implements FraudRule {
+        private final FraudRule delegate;
+        int calls;
+
+        CountingRule(FraudRule delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String name() {
+            return delegate.name();
+        }
+
+        @Override
+        public int cost() {
+            return delegate.cost();
+        }
+
+        @Override
+        public boolean canChange(Evaluation evaluation) {
+            return delegate.canChange(evaluation);
+        }
+
+        @Override
+        public boolean apply(Evaluation evaluation) {
+            calls++;
+            return delegate.apply(evaluation);
+        }
+    }
+
+    @Test
+    void testCustomPipelineAppliesToEveryEntryPoint() {
+        FraudDetectionSystem fraudSystem = new FraudDetectionSystem(new FraudRulePipeline(Arrays.asList(
+                new FraudRulePipeline.AmountRule(5000), new FraudRulePipeline.VelocityRule(60, 10),
+                new FraudRulePipeline.LocationHopRule(30), new FraudRulePipeline.BlacklistRule())));
+        FraudDetectionSystem.Transaction transaction = new FraudDetectionSystem.Transaction(7000,
+                LocalDateTime.of(2024, 1, 1, 12, 0), "New York");
+
+        Assertions.assertTrue(fraudSystem.checkForFraud(transaction, new ArrayList<>(), new ArrayList<>()).verificationRequired);
+        List<FraudDetectionSystem.FraudCheckResult> batch = new BatchFraudChecker(fraudSystem, ForkJoinPool.commonPool()).checkAll(
+                List.of(new BatchFraudChecker.AccountTransaction("acc-1", transaction)), BlacklistIndex.empty());
+        Assertions.assertTrue(batch.get(0).verificationRequired);
+
+        // Checks that hard-code the standard rules refuse the custom pipeline instead of ignoring it
+        Assertions.assertThrows(IllegalStateException.class, () -> fraudSystem.checkForFraud(7000, 0, 0,
+                new TransactionColumns(new LocationDictionary()), BlacklistIndex.empty()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new StreamingFraudScorer(fraudSystem));
+    }
+
+    // Written against the public rule API only
+    static class RoundAmountRule implements FraudRule {
+        @Override
+        public String name() {
+            return "rule.roundAmount";
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+
+        @Override
+        public boolean canChange(Evaluation evaluation) {
+            return !evaluation.isFlagged();
+        }
+
+        @Override
+        public boolean apply(Evaluation evaluation) {
+            if (evaluation.currentTransaction().amount() % 1000 == 0 && !evaluation.isBlacklisted(evaluation.currentTransaction().location())) {
+                evaluation.flag(5);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Test
+    void testCustomRuleAndReusedEvaluation() {
+        FraudDetectionSystem fraudSystem = new FraudDetectionSystem(new FraudRulePipeline(List.of(new RoundAmountRule())));
+        FraudDetectionSystem.Transaction round = new FraudDetectionSystem.Transaction(3000, LocalDateTime.of(2024, 1, 1, 12, 0), "New York");
+        FraudDetectionSystem.Transaction odd = new FraudDetectionSystem.Transaction(3001, LocalDateTime.of(2024, 1, 1, 12, 0), "New York");
+        List<FraudDetectionSystem.Transaction> history = Collections.emptyList();
+        BlacklistIndex blacklist = BlacklistIndex.empty();
+        FraudDetectionSystem.FraudCheckResult holder = new FraudDetectionSystem.FraudCheckResult();
+
+        Assertions.assertEquals(5, fraudSystem.checkForFraud(round, history, blacklist, holder).riskScore);
+        // State from the previous check must not leak into the reused evaluation
+        Assertions.assertEquals(0, fraudSystem.checkForFraud(odd, history, blacklist, holder).riskScore);
+        Assertions.assertFalse(holder.verificationRequired);
+    }
+}
@@ -0,0 +1,124 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class MappedTransactionLogTest {
+    private FraudDetectionSystem fraudSystem;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        fraudSystem = new FraudDetectionSystem();
+    }
+
+    @Test
+    void testLogCheckMatchesListCheck() throws IOException {
+        Random random = new Random(15);
+        String[] accounts = {"acc-1", "acc-2", "acc-3"};
+        String[] names = {"New York", "Los Angeles", "Fraud Town"};
+        List<String> blacklistedLocations = Arrays.asList("Fraud Town");
+        BlacklistIndex blacklist = BlacklistIndex.of(blacklistedLocations);
+        Map<String, List<FraudDetectionSystem.Transaction>> histories = new HashMap<>();
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // Small segments so that the history spans several mapped files
+        try (MappedTransactionLog log = MappedTransactionLog.open(directory, 64)) {
+            for (int i = 0; i < 2000; i++) {
+                time = time.plusSeconds(random.nextInt(300));
+                String accountId = accounts[random.nextInt(accounts.length)];
+                FraudDetectionSystem.Transaction transaction = new FraudDetectionSystem.Transaction(
+                        random.nextInt(12000), time, names[random.nextInt(names.length)]);
+                List<FraudDetectionSystem.Transaction> history = histories.computeIfAbsent(accountId, k -> new ArrayList<>());
+
+                FraudDetectionSystem.FraudCheckResult expected = fraudSystem.checkForFraud(transaction, history, blacklistedLocations);
+                FraudDetectionSystem.FraudCheckResult actual = fraudSystem.checkForFraud(transaction, accountId, log, blacklist);
+
+                Assertions.assertEquals(expected.isFraudulent, actual.isFraudulent);
+                Assertions.assertEquals(expected.isBlocked, actual.isBlocked);
+                Assertions.assertEquals(expected.verificationRequired, actual.verificationRequired);
+                Assertions.assertEquals(expected.riskScore, actual.riskScore);
+                history.add(transaction);
+                log.append(accountId, transaction);
+            }
+            Assertions.assertEquals(2000, log.size());
+        }
+    }
+
+    @Test
+    void testRecoversIndexAfterReopen() throws IOException {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        try (MappedTransactionLog log = MappedTransactionLog.open(directory, 4)) {
+            for (int i = 10; i >= 0; i--) {
+                log.append("acc-1", new FraudDetectionSystem.Transaction(100, now.minusMinutes(i), "New York"));
+                log.append("acc-2", new FraudDetectionSystem.Transaction(200, now.minusMinutes(i), "Los Angeles"));
+            }
+        }
+
+        try (MappedTransactionLog log = MappedTransactionLog.open(directory, 4)) {
+            Assertions.assertEquals(22, log.size());
+            long last = log.lastRecord("acc-2");
+            Assertions.assertEquals(200, log.amount(last));
+            Assertions.assertEquals("Los Angeles", log.locations().name(log.locationId(last)));
+
+            FraudDetectionSystem.FraudCheckResult result = fraudSystem.checkForFraud(
+                    new FraudDetectionSystem.Transaction(100, now, "New York"), "acc-1", log, BlacklistIndex.empty());
+            Assertions.assertTrue(result.isBlocked);
+            Assertions.assertEquals(30, result.riskScore);
+
+            // Appends continue after the recovered records
+            log.append("acc-3", new FraudDetectionSystem.Transaction(50, now, "Paris"));
+            Assertions.assertEquals(23, log.size());
+            Assertions.assertEquals(-1, log.previousRecord(log.lastRecord("acc-3")));
+        }
+    }
+
+    @Test
+    void testTornDictionaryEntryIsDropped() throws IOException {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        try (MappedTransactionLog log = MappedTransactionLog.open(directory, 4)) {
+            log.append("acc-1", new FraudDetectionSystem.Transaction(100, now, "New York"));
+        }
+        // A crash after writing only the kind byte of the next entry
+        Files.write(directory.resolve("dictionary.log"), new byte[]{'A'}, StandardOpenOption.APPEND);
+
+        try (MappedTransactionLog log = MappedTransactionLog.open(directory, 4)) {
+            log.append("acc-2", new FraudDetectionSystem.Transaction(200, now, "Los Angeles"));
+        }
+
+        try (MappedTransactionLog log = MappedTransactionLog.open(directory, 4)) {
+            Assertions.assertEquals(2, log.size());
+            Assertions.assertEquals(200, log.amount(log.lastRecord("acc-2")));
+            Assertions.assertEquals("Los Angeles", log.locations().name(log.locationId(log.lastRecord("acc-2"))));
+            Assertions.assertEquals("New York", log.locations().name(log.locationId(log.lastRecord("acc-1"))));
+        }
+    }
+
+    @Test
+    void testRejectsOutOfOrderAppend() throws IOException {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        try (MappedTransactionLog log = MappedTransactionLog.open(directory)) {
+            log.append("acc-1", new FraudDetectionSystem.Transaction(100, now, "New York"));
+
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> log.append("acc-1", new FraudDetectionSystem.Transaction(100, now.minusMinutes(1), "New York")));
+            Assertions.assertEquals(-1, log.lastRecord("unknown"));
+        }
+    }
+}
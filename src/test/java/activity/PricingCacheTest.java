@@ -0,0 +1,96 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+public class PricingCacheTest {
+    private FlightBookingSystem bookingSystem;
+    private PricingCache pricingCache;
+
+    @BeforeEach
+    void setUp() {
+        bookingSystem = new FlightBookingSystem();
+        pricingCache = new PricingCache(100);
+    }
+
+    @Test
+    void testCachedBookingsMatchBookFlight() {
+        Random random = new Random(13);
+        LocalDateTime bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        for (int i = 0; i < 5000; i++) {
+            String flightId = "F" + random.nextInt(5);
+            int passengers = 1 + random.nextInt(6);
+            double currentPrice = 100 + 50 * random.nextInt(3) + random.nextInt(100) / 100.0;
+            int previousSales = 40 + random.nextInt(10);
+            boolean isCancellation = random.nextInt(6) == 0;
+            LocalDateTime departureTime = bookingTime.plusHours(random.nextInt(72));
+            int rewardPoints = random.nextBoolean() ? 0 : random.nextInt(1000);
+
+            // Priced at the lower bound of the fare bucket and sales band
+            FlightBookingSystem.BookingResult expected = bookingSystem.bookFlight(passengers, bookingTime, 5, Math.floor(currentPrice),
+                    previousSales / 5 * 5, isCancellation, departureTime, rewardPoints);
+            FlightBookingSystem.BookingResult actual = bookingSystem.bookFlight(pricingCache, flightId, passengers, bookingTime, 5,
+                    currentPrice, previousSales, isCancellation, departureTime, rewardPoints);
+
+            Assertions.assertEquals(expected.confirmation, actual.confirmation);
+            Assertions.assertEquals(expected.totalPrice, actual.totalPrice);
+            Assertions.assertEquals(expected.refundAmount, actual.refundAmount);
+            Assertions.assertEquals(expected.pointsUsed, actual.pointsUsed);
+        }
+        Assertions.assertTrue(pricingCache.hits() > 0);
+        Assertions.assertTrue(pricingCache.invalidations() > 0);
+        Assertions.assertTrue(pricingCache.size() <= 100);
+    }
+
+    @Test
+    void testHitsAndSalesInvalidation() {
+        double first = pricingCache.fare("AA100", 2, 100.0, 50, 72);
+        // Same fare bucket and sales band
+        double second = pricingCache.fare("AA100", 2, 100.4, 53, 60);
+
+        Assertions.assertEquals(80.0, first, 0.01);
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(1, pricingCache.hits());
+        Assertions.assertEquals(1, pricingCache.misses());
+        Assertions.assertEquals(0.5, pricingCache.hitRate(), 0.0001);
+
+        // A new sales figure drops every cached fare of the flight
+        Assertions.assertEquals(96.0, pricingCache.fare("AA100", 2, 100.0, 60, 72), 0.01);
+        Assertions.assertEquals(1, pricingCache.invalidations());
+        Assertions.assertEquals(1, pricingCache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        PricingCache small = new PricingCache(2);
+        small.fare("AA100", 1, 100.0, 50, 72);
+        small.fare("AA200", 1, 100.0, 50, 72);
+        small.fare("AA100", 1, 100.0, 50, 72);
+        small.fare("AA300", 1, 100.0, 50, 72);
+
+        Assertions.assertEquals(1, small.evictions());
+        Assertions.assertEquals(2, small.size());
+        small.fare("AA100", 1, 100.0, 50, 72);
+        Assertions.assertEquals(2, small.hits());
+    }
+
+    @Test
+    void testEvictedFlightsAreForgotten() {
+        PricingCache small = new PricingCache(2);
+        for (int flight = 0; flight < 1000; flight++) {
+            small.fare("F" + flight, 1, 100.0, 50, 72);
+        }
+        Assertions.assertEquals(2, small.size());
+        Assertions.assertEquals(2, small.trackedFlights());
+
+        // A flight priced again in a new sales band after eviction is not served a stale fare
+        small.fare("F999", 1, 100.0, 50, 72);
+        Assertions.assertEquals(72.0, small.fare("F999", 1, 100.0, 90, 72), 0.01);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PricingCache(10, 0, 5));
+    }
+}
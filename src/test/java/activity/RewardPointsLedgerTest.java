@@ -0,0 +1,248 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class RewardPointsLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testConcurrentRedemptionsNeverOverspend() throws Exception {
+        RewardPointsLedger ledger = new RewardPointsLedger();
+        ledger.credit("alice", 1000);
+        ledger.credit("bob", 10);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> redeemed = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            redeemed.add(executor.submit(() -> {
+                int points = 0;
+                for (int i = 0; i < 500; i++) {
+                    points += ledger.debit("alice", 1) ? 1 : 0;
+                    points += ledger.debit("bob", 3) ? 3 : 0;
+                }
+                return points;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> future : redeemed) {
+            total += future.get();
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(1009, total);
+        Assertions.assertEquals(0, ledger.balance("alice"));
+        Assertions.assertEquals(1, ledger.balance("bob"));
+    }
+
+    @Test
+    void testIdempotencyKeysApplyOnce() {
+        RewardPointsLedger ledger = new RewardPointsLedger();
+        ledger.credit("alice", 100, "signup-bonus");
+        ledger.credit("alice", 100, "signup-bonus");
+        Assertions.assertEquals(100, ledger.balance("alice"));
+
+        Assertions.assertTrue(ledger.debit("alice", 60, "booking-1"));
+        Assertions.assertTrue(ledger.debit("alice", 60, "booking-1"));
+        Assertions.assertEquals(40, ledger.balance("alice"));
+
+        // A failed redemption stays failed when retried, even after a top-up
+        Assertions.assertFalse(ledger.debit("alice", 60, "booking-2"));
+        ledger.credit("alice", 100);
+        Assertions.assertFalse(ledger.debit("alice", 60, "booking-2"));
+        Assertions.assertEquals(140, ledger.balance("alice"));
+
+        Assertions.assertFalse(ledger.debit("nobody", 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ledger.debit("alice", 0));
+
+        // A key names one operation: reusing it for another member, kind or amount is rejected
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ledger.debit("bob", 100, "signup-bonus"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ledger.credit("bob", 60, "booking-1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ledger.debit("alice", 61, "booking-1"));
+        Assertions.assertEquals(140, ledger.balance("alice"));
+        Assertions.assertEquals(0, ledger.balance("bob"));
+    }
+
+    @Test
+    void testRefundFreesTheKey() {
+        RewardPointsLedger ledger = new RewardPointsLedger();
+        ledger.credit("alice", 100);
+        Assertions.assertTrue(ledger.debit("alice", 70, "booking-1"));
+        ledger.refund("alice", 70, "booking-1");
+        ledger.refund("alice", 70, "booking-1");
+        Assertions.assertEquals(100, ledger.balance("alice"));
+
+        Assertions.assertTrue(ledger.debit("alice", 70, "booking-1"));
+        Assertions.assertTrue(ledger.debit("alice", 70, "booking-1"));
+        Assertions.assertEquals(30, ledger.balance("alice"));
+
+        // Nothing to refund for a debit that took no points
+        Assertions.assertFalse(ledger.debit("alice", 70, "booking-2"));
+        ledger.refund("alice", 70, "booking-2");
+        Assertions.assertEquals(30, ledger.balance("alice"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ledger.refund("bob", 70, "booking-1"));
+    }
+
+    @Test
+    void testJournalReplaysAfterReopen() throws IOException {
+        Path journal = directory.resolve("points.journal");
+        try (RewardPointsLedger ledger = RewardPointsLedger.open(journal)) {
+            ledger.credit("alice", 500);
+            ledger.credit("bob", 50, "bonus-bob");
+            Assertions.assertTrue(ledger.debit("alice", 120, "booking-1"));
+            Assertions.assertFalse(ledger.debit("bob", 80, "booking-2"));
+            Assertions.assertTrue(ledger.debit("alice", 200, "booking-3"));
+            ledger.refund("alice", 200, "booking-3");
+        }
+        // A record torn by a crash mid-write
+        Files.write(journal, new byte[]{0, 0, 0, 40, 'D', 1}, StandardOpenOption.APPEND);
+
+        try (RewardPointsLedger ledger = RewardPointsLedger.open(journal)) {
+            Assertions.assertEquals(380, ledger.balance("alice"));
+            Assertions.assertEquals(50, ledger.balance("bob"));
+            Assertions.assertTrue(ledger.debit("alice", 120, "booking-1"));
+            Assertions.assertFalse(ledger.debit("bob", 80, "booking-2"));
+            ledger.credit("bob", 50, "bonus-bob");
+            Assertions.assertEquals(380, ledger.balance("alice"));
+            // The refund freed booking-3
+            Assertions.assertTrue(ledger.debit("alice", 200, "booking-3"));
+            Assertions.assertEquals(180, ledger.balance("alice"));
+            Assertions.assertEquals(50, ledger.balance("bob"));
+            Assertions.assertTrue(ledger.debit("bob", 20));
+        }
+
+        try (RewardPointsLedger ledger = RewardPointsLedger.open(journal)) {
+            Assertions.assertEquals(30, ledger.balance("bob"));
+        }
+    }
+
+    @Test
+    void testOnlyRecentKeysAreRemembered() {
+        RewardPointsLedger ledger = new RewardPointsLedger(2);
+        ledger.credit("alice", 10, "k1");
+        ledger.credit("alice", 10, "k2");
+        ledger.credit("alice", 10, "k3");
+        ledger.credit("alice", 10, "k3");
+        Assertions.assertEquals(30, ledger.balance("alice"));
+
+        // k1 was forgotten, so its retry applies again
+        ledger.credit("alice", 10, "k1");
+        Assertions.assertEquals(40, ledger.balance("alice"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RewardPointsLedger(0));
+    }
+
+    @Test
+    void testCompactionKeepsBalancesAndKeys() throws IOException {
+        Path journal = directory.resolve("points.journal");
+        try (RewardPointsLedger ledger = RewardPointsLedger.open(journal, 100)) {
+            // Enough records that replay needs several chunks
+            for (int i = 0; i < 20_000; i++) {
+                ledger.credit("member-" + (i % 50), 3);
+                Assertions.assertTrue(ledger.debit("member-" + (i % 50), 1, "debit-" + i));
+            }
+            ledger.credit("alice", 100, "bonus");
+            Assertions.assertTrue(ledger.debit("alice", 40, "booking-1"));
+            Assertions.assertTrue(ledger.debit("alice", 30, "booking-2"));
+            Assertions.assertTrue(ledger.refund("alice", 30, "booking-2"));
+        }
+        long journalBytes = Files.size(journal);
+        Assertions.assertTrue(journalBytes > RewardPointsLedger.REPLAY_CHUNK * 2L);
+
+        try (RewardPointsLedger ledger = RewardPointsLedger.open(journal, 100)) {
+            Assertions.assertEquals(400 * 2, ledger.balance("member-7"));
+            Assertions.assertEquals(60, ledger.balance("alice"));
+            ledger.compact();
+            Assertions.assertTrue(Files.size(journal) < journalBytes / 10, "compacted to " + Files.size(journal));
+            Assertions.assertTrue(ledger.debit("alice", 10));
+        }
+
+        try (RewardPointsLedger ledger = RewardPointsLedger.open(journal, 100)) {
+            Assertions.assertEquals(400 * 2, ledger.balance("member-7"));
+            Assertions.assertEquals(50, ledger.balance("alice"));
+            // Remembered keys survive compaction; the refunded one applies again
+            ledger.credit("alice", 100, "bonus");
+            Assertions.assertTrue(ledger.debit("alice", 40, "booking-1"));
+            Assertions.assertEquals(50, ledger.balance("alice"));
+            Assertions.assertTrue(ledger.debit("alice", 30, "booking-2"));
+            Assertions.assertEquals(20, ledger.balance("alice"));
+        }
+    }
+
+    @Test
+    void testBookFlightRedeemsThroughLedger() {
+        FlightBookingSystem bookingSystem = new FlightBookingSystem();
+        RewardPointsLedger ledger = new RewardPointsLedger();
+        ledger.credit("alice", 1000);
+        LocalDateTime bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        LocalDateTime departureTime = bookingTime.plusDays(3);
+
+        FlightBookingSystem.BookingResult result = bookingSystem.bookFlight(ledger, "alice", "B1", 2, bookingTime, 10, 100.0, 50,
+                false, departureTime, 800);
+        Assertions.assertTrue(result.confirmation);
+        Assertions.assertTrue(result.pointsUsed);
+        Assertions.assertEquals(72.0, result.totalPrice, 0.01);
+        Assertions.assertEquals(200, ledger.balance("alice"));
+
+        // Retrying the same booking does not debit again
+        bookingSystem.bookFlight(ledger, "alice", "B1", 2, bookingTime, 10, 100.0, 50, false, departureTime, 800);
+        Assertions.assertEquals(200, ledger.balance("alice"));
+
+        // Not enough points: priced without them
+        result = bookingSystem.bookFlight(ledger, "alice", "B2", 2, bookingTime, 10, 100.0, 50, false, departureTime, 800);
+        Assertions.assertTrue(result.confirmation);
+        Assertions.assertFalse(result.pointsUsed);
+        Assertions.assertEquals(80.0, result.totalPrice, 0.01);
+        Assertions.assertEquals(200, ledger.balance("alice"));
+
+        // Not confirmed: the points come back
+        result = bookingSystem.bookFlight(ledger, "alice", "B3", 20, bookingTime, 10, 100.0, 50, false, departureTime, 150);
+        Assertions.assertFalse(result.confirmation);
+        Assertions.assertEquals(200, ledger.balance("alice"));
+
+        // Retried once seats are available: the points are debited this time
+        result = bookingSystem.bookFlight(ledger, "alice", "B3", 20, bookingTime, 30, 100.0, 50, false, departureTime, 150);
+        Assertions.assertTrue(result.confirmation);
+        Assertions.assertTrue(result.pointsUsed);
+        Assertions.assertEquals(50, ledger.balance("alice"));
+    }
+
+    @Test
+    void testCancellationReturnsRedeemedPoints() {
+        FlightBookingSystem bookingSystem = new FlightBookingSystem();
+        RewardPointsLedger ledger = new RewardPointsLedger();
+        ledger.credit("alice", 1000);
+        LocalDateTime bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        LocalDateTime departureTime = bookingTime.plusDays(3);
+
+        FlightBookingSystem.BookingResult result = bookingSystem.bookFlight(ledger, "alice", "B1", 2, bookingTime, 10, 100.0, 50,
+                false, departureTime, 800);
+        Assertions.assertTrue(result.pointsUsed);
+        Assertions.assertEquals(200, ledger.balance("alice"));
+
+        // The points come back and the cash refund covers what was paid in cash
+        result = bookingSystem.bookFlight(ledger, "alice", "B1", 2, bookingTime, 10, 100.0, 50, true, departureTime, 800);
+        Assertions.assertFalse(result.confirmation);
+        Assertions.assertEquals(72.0, result.refundAmount, 0.01);
+        Assertions.assertEquals(1000, ledger.balance("alice"));
+
+        // Cancelling a booking that was priced without points refunds the full fare
+        result = bookingSystem.bookFlight(ledger, "alice", "B2", 2, bookingTime, 10, 100.0, 50, true, departureTime, 800);
+        Assertions.assertEquals(80.0, result.refundAmount, 0.01);
+        Assertions.assertEquals(1000, ledger.balance("alice"));
+    }
+}
@@ -0,0 +1,80 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ScheduleQueueTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void testPollDueReturnsOnlyWindowInTimeOrder() {
+        List<SmartEnergyManagementSystem.DeviceSchedule> schedules = new ArrayList<>();
+        schedules.add(new SmartEnergyManagementSystem.DeviceSchedule("Dryer", START.plusMinutes(20)));
+        schedules.add(new SmartEnergyManagementSystem.DeviceSchedule("Missed", START.minusMinutes(5)));
+        schedules.add(new SmartEnergyManagementSystem.DeviceSchedule("WashingMachine", START.plusMinutes(10)));
+        schedules.add(new SmartEnergyManagementSystem.DeviceSchedule("Dishwasher", START.plusMinutes(90)));
+        ScheduleQueue queue = new ScheduleQueue(schedules);
+
+        List<SmartEnergyManagementSystem.DeviceSchedule> due = queue.pollDue(START, START.plusMinutes(30));
+
+        Assertions.assertEquals(2, due.size());
+        Assertions.assertEquals("WashingMachine", due.get(0).deviceName);
+        Assertions.assertEquals("Dryer", due.get(1).deviceName);
+        Assertions.assertEquals(1, queue.size());
+        Assertions.assertEquals(START.plusMinutes(90), queue.nextDueTime());
+        Assertions.assertTrue(queue.pollDue(START.plusMinutes(30), START.plusMinutes(60)).isEmpty());
+    }
+
+    @Test
+    void testCancel() {
+        ScheduleQueue queue = new ScheduleQueue();
+        ScheduleQueue.Entry first = queue.add(new SmartEnergyManagementSystem.DeviceSchedule("Dryer", START));
+        ScheduleQueue.Entry second = queue.add(new SmartEnergyManagementSystem.DeviceSchedule("Oven", START.plusMinutes(1)));
+
+        Assertions.assertTrue(queue.cancel(first));
+        Assertions.assertFalse(queue.cancel(first));
+        Assertions.assertEquals(1, queue.size());
+
+        List<SmartEnergyManagementSystem.DeviceSchedule> due = queue.pollDue(START, START.plusMinutes(5));
+        Assertions.assertEquals(1, due.size());
+        Assertions.assertSame(second.schedule(), due.get(0));
+        Assertions.assertFalse(queue.cancel(second));
+        Assertions.assertNull(queue.nextDueTime());
+    }
+
+    @Test
+    void testLargeQueueWithManyCancellations() {
+        ScheduleQueue queue = new ScheduleQueue();
+        List<ScheduleQueue.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            entries.add(queue.add(new SmartEnergyManagementSystem.DeviceSchedule("Device-" + i, START.plusSeconds(i))));
+        }
+        for (int i = 0; i < entries.size(); i += 2) {
+            queue.cancel(entries.get(i));
+        }
+
+        Assertions.assertEquals(100_000, queue.size());
+        Assertions.assertEquals(50, queue.pollDue(START, START.plusSeconds(99)).size());
+    }
+
+    @Test
+    void testControllerFiresScheduleBetweenTicks() {
+        Map<String, Integer> devicePriorities = new HashMap<>();
+        devicePriorities.put("WashingMachine", 2);
+        EnergyController controller = new EnergyController(0.4, devicePriorities, new double[]{20.0, 25.0}, 100.0,
+                new ArrayList<>(), 0.5, 22.0);
+        controller.tick(START, 50.0);
+        controller.schedule(new SmartEnergyManagementSystem.DeviceSchedule("WashingMachine", START.plusSeconds(30)));
+
+        Map<String, Boolean> changes = controller.tick(START.plusMinutes(1), 50.0);
+
+        Assertions.assertEquals(Map.of("WashingMachine", true), changes);
+        Assertions.assertEquals(Map.of("WashingMachine", false), controller.tick(START.plusMinutes(2), 50.0));
+    }
+}
@@ -0,0 +1,101 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class SeatInventoryTest {
+    private SeatInventory inventory;
+    private FlightBookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new SeatInventory();
+        bookingSystem = new FlightBookingSystem();
+    }
+
+    @Test
+    void testReserveAndRelease() {
+        inventory.addFlight("AA100", 5);
+
+        Assertions.assertTrue(inventory.reserve("AA100", 3));
+        Assertions.assertFalse(inventory.reserve("AA100", 3));
+        Assertions.assertEquals(2, inventory.availableSeats("AA100"));
+
+        inventory.release("AA100", 10);
+        Assertions.assertEquals(5, inventory.availableSeats("AA100"));
+    }
+
+    @Test
+    void testUnknownAndDuplicateFlights() {
+        inventory.addFlight("AA100", 5);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> inventory.addFlight("AA100", 5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> inventory.reserve("ZZ999", 1));
+    }
+
+    @Test
+    void testNonPositiveSeatCountsAreRejected() {
+        inventory.addFlight("AA100", 5);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> inventory.reserve("AA100", -3));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> inventory.reserve("AA100", 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> inventory.release("AA100", -3));
+        Assertions.assertEquals(5, inventory.availableSeats("AA100"));
+    }
+
+    @Test
+    void testBookFlightWithInventory() {
+        inventory.addFlight("AA100", 5);
+        LocalDateTime bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        LocalDateTime departureTime = bookingTime.plusDays(3);
+
+        FlightBookingSystem.BookingResult result = bookingSystem.bookFlight(inventory, "AA100", 2, bookingTime, 100.0, 50, false, departureTime, 0);
+        Assertions.assertTrue(result.confirmation);
+        Assertions.assertEquals(80.0, result.totalPrice, 0.01);
+        Assertions.assertEquals(3, inventory.availableSeats("AA100"));
+
+        result = bookingSystem.bookFlight(inventory, "AA100", 4, bookingTime, 100.0, 50, false, departureTime, 0);
+        Assertions.assertFalse(result.confirmation);
+        Assertions.assertEquals(3, inventory.availableSeats("AA100"));
+
+        result = bookingSystem.bookFlight(inventory, "AA100", 2, bookingTime, 100.0, 50, true, departureTime, 0);
+        Assertions.assertFalse(result.confirmation);
+        Assertions.assertEquals(80.0, result.refundAmount, 0.01);
+        Assertions.assertEquals(5, inventory.availableSeats("AA100"));
+    }
+
+    @Test
+    void testConcurrentBookingsNeverOversell() throws Exception {
+        inventory.addFlight("AA100", 1000);
+        LocalDateTime bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        LocalDateTime departureTime = bookingTime.plusDays(3);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<FlightBookingSystem.BookingResult>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            int passengers = 1 + i % 3;
+            futures.add(executor.submit(() -> bookingSystem.bookFlight(inventory, "AA100", passengers, bookingTime,
+                    100.0, 50, false, departureTime, 0)));
+        }
+        int seatsSold = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            if (futures.get(i).get().confirmation) {
+                seatsSold += 1 + i % 3;
+            }
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assertions.assertTrue(seatsSold <= 1000);
+        Assertions.assertEquals(1000 - seatsSold, inventory.availableSeats("AA100"));
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -156,4 +157,69 @@ public class SmartEnergyManagementSystemTest {
         Assertions.assertTrue(result.deviceStatus.get("Lights"));
         Assertions.assertTrue(result.deviceStatus.get("Appliances"));
     }
+
+    @Test
+    void testLoadSheddingOrderIsDeterministic() {
+        Map<String, Integer> devicePriorities = new HashMap<>();
+        devicePriorities.put("Fridge", 1);
+        devicePriorities.put("Lights", 2);
+        devicePriorities.put("Dryer", 3);
+        devicePriorities.put("Appliances", 3);
+
+        // Two units over the limit: the two priority-3 devices go first, alphabetically
+        SmartEnergyManagementSystem.EnergyManagementResult result = energySystem.manageEnergy(
+                0.3, 0.4, devicePriorities, LocalDateTime.of(2024, 1, 1, 12, 0), 22.0,
+                new double[]{20.0, 25.0}, 100.0, 101.0, new ArrayList<>());
+
+        Assertions.assertFalse(result.deviceStatus.get("Appliances"));
+        Assertions.assertFalse(result.deviceStatus.get("Dryer"));
+        Assertions.assertTrue(result.deviceStatus.get("Lights"));
+        Assertions.assertTrue(result.deviceStatus.get("Fridge"));
+        Assertions.assertEquals(99.0, result.totalEnergyUsed, 0.0001);
+    }
+
+    @Test
+    void testLoadSheddingScalesToManyDevices() {
+        Map<String, Integer> devicePriorities = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            devicePriorities.put("Device-" + i, 1 + i % 3);
+        }
+
+        SmartEnergyManagementSystem.EnergyManagementResult result = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> energySystem.manageEnergy(0.3, 0.4, devicePriorities, LocalDateTime.of(2024, 1, 1, 12, 0), 22.0,
+                        new double[]{20.0, 25.0}, 10.0, 200_000.0, new ArrayList<>()));
+
+        long off = result.deviceStatus.values().stream().filter(on -> !on).count();
+        // Every one of the 133,333 low-priority devices is shed, plus Heating and Cooling are reported off
+        Assertions.assertEquals(133_333 + 2, off);
+        Assertions.assertEquals(200_000.0 - 133_333, result.totalEnergyUsed, 0.0001);
+    }
+
+    @Test
+    void testManageEnergyIntoReusableResult() {
+        Map<String, Integer> devicePriorities = new HashMap<>();
+        devicePriorities.put("TV", 2);
+        devicePriorities.put("Fridge", 1);
+        LocalDateTime noon = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<SmartEnergyManagementSystem.DeviceSchedule> scheduledDevices = new ArrayList<>();
+        scheduledDevices.add(new SmartEnergyManagementSystem.DeviceSchedule("Pool", noon));
+        SmartEnergyManagementSystem.EnergyManagementResult holder = new SmartEnergyManagementSystem.EnergyManagementResult();
+        Map<String, Boolean> statusMap = holder.deviceStatus;
+
+        energySystem.manageEnergy(0.5, 0.4, devicePriorities, noon, 18.0, new double[]{20.0, 25.0}, 100.0, 50.0, scheduledDevices, holder);
+        Assertions.assertTrue(holder.deviceStatus.get("Pool"));
+
+        // The scheduled device is no longer reported on the next tick, and the same map is reused
+        SmartEnergyManagementSystem.EnergyManagementResult result = energySystem.manageEnergy(0.3, 0.4, devicePriorities, noon.plusMinutes(1),
+                22.0, new double[]{20.0, 25.0}, 100.0, 50.0, scheduledDevices, holder);
+        SmartEnergyManagementSystem.EnergyManagementResult expected = energySystem.manageEnergy(0.3, 0.4, devicePriorities, noon.plusMinutes(1),
+                22.0, new double[]{20.0, 25.0}, 100.0, 50.0, scheduledDevices);
+
+        Assertions.assertSame(holder, result);
+        Assertions.assertSame(statusMap, result.deviceStatus);
+        Assertions.assertEquals(expected.deviceStatus, result.deviceStatus);
+        Assertions.assertEquals(expected.energySavingMode, result.energySavingMode);
+        Assertions.assertEquals(expected.temperatureRegulationActive, result.temperatureRegulationActive);
+        Assertions.assertEquals(expected.totalEnergyUsed, result.totalEnergyUsed);
+    }
 }
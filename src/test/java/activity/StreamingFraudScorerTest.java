@@ -0,0 +1,109 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class StreamingFraudScorerTest {
+    private FraudDetectionSystem fraudSystem;
+    private StreamingFraudScorer scorer;
+
+    @BeforeEach
+    void setUp() {
+        fraudSystem = new FraudDetectionSystem();
+        scorer = new StreamingFraudScorer(fraudSystem);
+    }
+
+    @Test
+    void testMatchesCheckForFraudOnRandomStream() {
+        Random random = new Random(42);
+        String[] locations = {"New York", "Los Angeles", "Fraud Town"};
+        List<String> blacklistedLocations = Arrays.asList("Fraud Town");
+        List<FraudDetectionSystem.Transaction> history = new ArrayList<>();
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        for (int i = 0; i < 2000; i++) {
+            time = time.plusSeconds(random.nextInt(900));
+            FraudDetectionSystem.Transaction transaction = new FraudDetectionSystem.Transaction(
+                    random.nextInt(12000), time, locations[random.nextInt(locations.length)]);
+
+            FraudDetectionSystem.FraudCheckResult expected = fraudSystem.checkForFraud(transaction, history, blacklistedLocations);
+            FraudDetectionSystem.FraudCheckResult actual = scorer.score("acc-1", transaction, blacklistedLocations);
+
+            Assertions.assertEquals(expected.isFraudulent, actual.isFraudulent);
+            Assertions.assertEquals(expected.isBlocked, actual.isBlocked);
+            Assertions.assertEquals(expected.verificationRequired, actual.verificationRequired);
+            Assertions.assertEquals(expected.riskScore, actual.riskScore);
+            history.add(transaction);
+        }
+    }
+
+    @Test
+    void testExcessiveTransactionsAndEviction() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 11; i++) {
+            scorer.score("acc-1", new FraudDetectionSystem.Transaction(100, now.plusMinutes(i * 5), "New York"), new ArrayList<>());
+        }
+
+        FraudDetectionSystem.FraudCheckResult result = scorer.score("acc-1",
+                new FraudDetectionSystem.Transaction(100, now.plusMinutes(55), "New York"), new ArrayList<>());
+        Assertions.assertTrue(result.isBlocked);
+        Assertions.assertEquals(30, result.riskScore);
+
+        // Two hours later every earlier transaction has left the window
+        result = scorer.score("acc-1", new FraudDetectionSystem.Transaction(100, now.plusMinutes(180), "New York"), new ArrayList<>());
+        Assertions.assertFalse(result.isBlocked);
+        Assertions.assertEquals(1, scorer.windowSize("acc-1"));
+    }
+
+    @Test
+    void testIdleAccountsAreDropped() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 1000; i++) {
+            scorer.score("acc-" + i, new FraudDetectionSystem.Transaction(100, now.plusSeconds(i), "New York"), new ArrayList<>());
+        }
+        for (int i = 0; i < 11; i++) {
+            scorer.score("busy", new FraudDetectionSystem.Transaction(100, now.plusMinutes(20 + i * 4), "New York"), new ArrayList<>());
+        }
+        Assertions.assertEquals(1001, scorer.accountCount());
+
+        // 61 minutes on, the first accounts are idle; the busy account still counts its last hour
+        FraudDetectionSystem.FraudCheckResult result = scorer.score("busy",
+                new FraudDetectionSystem.Transaction(100, now.plusMinutes(61).plusSeconds(500), "New York"), new ArrayList<>());
+        Assertions.assertTrue(result.isBlocked);
+        Assertions.assertEquals(500, scorer.accountCount());
+        Assertions.assertEquals(0, scorer.windowSize("acc-0"));
+        Assertions.assertEquals(1, scorer.windowSize("acc-999"));
+
+        scorer.score("acc-0", new FraudDetectionSystem.Transaction(100, now.plusHours(3), "New York"), new ArrayList<>());
+        Assertions.assertEquals(1, scorer.accountCount());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new StreamingFraudScorer(fraudSystem, 59));
+    }
+
+    @Test
+    void testAccountsAreIndependent() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        scorer.score("acc-1", new FraudDetectionSystem.Transaction(100, now, "New York"), new ArrayList<>());
+
+        FraudDetectionSystem.FraudCheckResult result = scorer.score("acc-2",
+                new FraudDetectionSystem.Transaction(100, now.plusMinutes(5), "Los Angeles"), new ArrayList<>());
+
+        Assertions.assertFalse(result.isFraudulent);
+        Assertions.assertEquals(0, result.riskScore);
+    }
+
+    @Test
+    void testOutOfOrderTransactionRejected() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        scorer.score("acc-1", new FraudDetectionSystem.Transaction(100, now, "New York"), new ArrayList<>());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scorer.score("acc-1",
+                new FraudDetectionSystem.Transaction(100, now.minusMinutes(1), "New York"), new ArrayList<>()));
+    }
+}
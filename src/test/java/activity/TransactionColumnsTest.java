@@ -0,0 +1,106 @@
+package activity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class TransactionColumnsTest {
+    private FraudDetectionSystem fraudSystem;
+    private LocationDictionary locations;
+
+    @BeforeEach
+    void setUp() {
+        fraudSystem = new FraudDetectionSystem();
+        locations = new LocationDictionary();
+    }
+
+    @Test
+    void testColumnarCheckMatchesListCheck() {
+        Random random = new Random(3);
+        String[] names = {"New York", "Los Angeles", "Fraud Town"};
+        List<String> blacklistedLocations = Arrays.asList("Fraud Town");
+        BlacklistIndex blacklist = BlacklistIndex.of(blacklistedLocations);
+        List<FraudDetectionSystem.Transaction> history = new ArrayList<>();
+        TransactionColumns columns = new TransactionColumns(locations);
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        for (int i = 0; i < 2000; i++) {
+            time = time.plusSeconds(random.nextInt(600));
+            // Occasionally jump backwards: the columnar scan must not rely on ordering
+            LocalDateTime timestamp = i % 17 == 0 ? time.minusMinutes(90) : time;
+            FraudDetectionSystem.Transaction transaction = new FraudDetectionSystem.Transaction(
+                    random.nextInt(12000), timestamp, names[random.nextInt(names.length)]);
+
+            FraudDetectionSystem.FraudCheckResult expected = fraudSystem.checkForFraud(transaction, history, blacklistedLocations);
+            FraudDetectionSystem.FraudCheckResult actual = fraudSystem.checkForFraud(transaction.amount,
+                    TransactionColumns.toEpochMillis(timestamp), locations.idOf(transaction.location), columns, blacklist);
+
+            Assertions.assertEquals(expected.isFraudulent, actual.isFraudulent);
+            Assertions.assertEquals(expected.isBlocked, actual.isBlocked);
+            Assertions.assertEquals(expected.verificationRequired, actual.verificationRequired);
+            Assertions.assertEquals(expected.riskScore, actual.riskScore);
+            history.add(transaction);
+            columns.add(transaction);
+        }
+    }
+
+    @Test
+    void testWindowBoundaries() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<FraudDetectionSystem.Transaction> history = new ArrayList<>();
+        // Exactly 60m59s before still counts as "60 minutes", 61 minutes does not
+        for (int i = 0; i < 11; i++) {
+            history.add(new FraudDetectionSystem.Transaction(100, now.minusMinutes(60).minusSeconds(59), "New York"));
+        }
+        history.add(new FraudDetectionSystem.Transaction(100, now.minusMinutes(61), "New York"));
+        TransactionColumns columns = TransactionColumns.of(history, locations);
+
+        FraudDetectionSystem.FraudCheckResult result = fraudSystem.checkForFraud(100, TransactionColumns.toEpochMillis(now),
+                locations.idOf("New York"), columns, BlacklistIndex.empty());
+
+        Assertions.assertTrue(result.isBlocked);
+        Assertions.assertEquals(30, result.riskScore);
+        Assertions.assertEquals(12, columns.size());
+    }
+
+    @Test
+    void testLocationDictionaryInterning() {
+        int newYork = locations.idOf("New York");
+        int losAngeles = locations.idOf("Los Angeles");
+
+        Assertions.assertEquals(newYork, locations.idOf("New York"));
+        Assertions.assertNotEquals(newYork, losAngeles);
+        Assertions.assertEquals("Los Angeles", locations.name(losAngeles));
+        Assertions.assertEquals(-1, locations.find("Paris"));
+        Assertions.assertEquals(2, locations.size());
+    }
+
+    @Test
+    void testColumnarCheckIntoReusableResult() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        TransactionColumns columns = new TransactionColumns(locations);
+        for (int i = 0; i < 1000; i++) {
+            columns.add(new FraudDetectionSystem.Transaction(100, now.minusMinutes(i), i % 2 == 0 ? "New York" : "Los Angeles"));
+        }
+        BlacklistIndex blacklist = BlacklistIndex.of(Arrays.asList("Fraud Town"));
+        long nowMillis = TransactionColumns.toEpochMillis(now);
+        FraudDetectionSystem.FraudCheckResult holder = new FraudDetectionSystem.FraudCheckResult();
+
+        Assertions.assertSame(holder, fraudSystem.checkForFraud(100, nowMillis, locations.idOf("Fraud Town"), columns, blacklist, holder));
+        Assertions.assertTrue(holder.isBlocked);
+        Assertions.assertEquals(100, holder.riskScore);
+
+        // A later check into the same holder must not keep the previous verdict; allocation is tracked by the JMH baseline
+        long farFuture = TransactionColumns.toEpochMillis(now.plusDays(1));
+        fraudSystem.checkForFraud(100, farFuture, locations.idOf("New York"), columns, blacklist, holder);
+        Assertions.assertFalse(holder.isBlocked);
+        Assertions.assertFalse(holder.isFraudulent);
+        Assertions.assertEquals(0, holder.riskScore);
+    }
+}